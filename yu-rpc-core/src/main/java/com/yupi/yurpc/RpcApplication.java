@@ -5,10 +5,16 @@ import com.yupi.yurpc.config.RpcConfig;
 import com.yupi.yurpc.constant.RpcConstant;
 import com.yupi.yurpc.registry.Registry;
 import com.yupi.yurpc.registry.RegistryFactory;
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiters;
+import com.yupi.yurpc.server.tcp.VertxTcpServer;
 import com.yupi.yurpc.utils.ConfigUtils;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * RPC 框架应用
  * 相当于holder，存放了项目全局用到的变量。双检锁单例模式实现
@@ -25,6 +31,11 @@ public class RpcApplication {
      */
     private static volatile Vertx vertx;
 
+    /**
+     * 是否已执行停机
+     */
+    private static final AtomicBoolean shutdown = new AtomicBoolean(false);
+
     /**
      * 框架初始化，支持传入自定义配置
      *
@@ -33,6 +44,8 @@ public class RpcApplication {
     public static void init(RpcConfig newRpcConfig) {
         rpcConfig = newRpcConfig;
         log.info("rpc init, config = {}", newRpcConfig.toString());
+        // 配置错误在启动时暴露，不等到首个请求
+        ConcurrencyLimiters.checkAlgorithm(rpcConfig.getConcurrencyLimitConfig().getAlgorithm());
 
         // 注册中心初始化
         // 获取注册中心配置
@@ -44,8 +57,39 @@ public class RpcApplication {
         registry.init(registryConfig);
         log.info("registry init, config = {}", registryConfig);
 
-        // 创建并注册 Shutdown Hook， JVM 退出时执行
-        Runtime.getRuntime().addShutdownHook(new Thread(registry::destroy));
+        // 创建并注册 Shutdown Hook， JVM 退出时按顺序优雅停机
+        Runtime.getRuntime().addShutdownHook(new Thread(RpcApplication::shutdown));
+    }
+
+    /**
+     * 优雅停机（可重复调用，只执行一次）：
+     * 1. 从注册中心注销本节点，消费端不再发现该节点；
+     * 2. 向已连接的客户端发送 GOAWAY，并等待在途请求处理完成（最长 shutdownTimeoutMillis）；
+     * 3. 关闭 TCP 服务器与 Vert.x。
+     */
+    public static void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        RpcConfig config = rpcConfig;
+        if (config == null) {
+            return;
+        }
+        try {
+            RegistryFactory.getInstance(config.getRegistryConfig().getRegistry()).destroy();
+        } catch (Exception e) {
+            log.warn("registry destroy failed", e);
+        }
+        VertxTcpServer.shutdownGracefully(config.getShutdownTimeoutMillis());
+        if (vertx != null) {
+            try {
+                vertx.close().toCompletionStage().toCompletableFuture()
+                        .get(config.getShutdownTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.warn("vertx close failed", e);
+            }
+        }
+        log.info("rpc shutdown");
     }
 
     /**
@@ -85,7 +129,11 @@ public class RpcApplication {
         if (vertx == null) {
             synchronized (RpcApplication.class) {
                 if (vertx == null) {
-                    vertx = Vertx.vertx();
+                    // 优先使用原生传输（Linux 下为 epoll），不可用时 Vert.x 自动回退到 NIO
+                    VertxOptions vertxOptions = new VertxOptions()
+                            .setPreferNativeTransport(getRpcConfig().getTransportConfig().isPreferNativeTransport());
+                    vertx = Vertx.vertx(vertxOptions);
+                    log.info("vertx init, native transport = {}", vertx.isNativeTransportEnabled());
                 }
             }
         }
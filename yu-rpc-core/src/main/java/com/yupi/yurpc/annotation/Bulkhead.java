@@ -0,0 +1,30 @@
+package com.yupi.yurpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 舱壁隔离：为服务实现类（或其某个方法）分配独立的业务线程池与队列，慢服务不会占满其他服务的执行资源。
+ * 标注在类上时整个服务共享一个舱壁；标注在方法上时该方法使用独立的舱壁。
+ * 舱壁已满时请求以 BULKHEAD_FULL 状态拒绝。优先级：方法注解 > 方法 @RpcExecutor > 类注解 > 类 @RpcExecutor > 全局配置。
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * 最大并发执行数（线程数），小于等于 0 时使用全局配置
+     *
+     * @return
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * 排队上限，0 表示不排队，小于 0 时使用全局配置
+     *
+     * @return
+     */
+    int queueCapacity() default -1;
+}
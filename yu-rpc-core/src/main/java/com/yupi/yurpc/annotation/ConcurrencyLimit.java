@@ -0,0 +1,46 @@
+package com.yupi.yurpc.annotation;
+
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiterKeys;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务端自适应并发限制，覆盖全局配置。
+ * 标注在服务实现类上时，整个服务共享一个限制器；标注在方法上时，该方法使用独立的限制器。
+ * 数值属性小于等于 0 时使用全局配置。
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimit {
+
+    /**
+     * 限制算法，取值见 {@link ConcurrencyLimiterKeys}
+     *
+     * @return
+     */
+    String value() default ConcurrencyLimiterKeys.GRADIENT;
+
+    /**
+     * 初始并发上限
+     *
+     * @return
+     */
+    int initialLimit() default 0;
+
+    /**
+     * 最小并发上限
+     *
+     * @return
+     */
+    int minLimit() default 0;
+
+    /**
+     * 最大并发上限
+     *
+     * @return
+     */
+    int maxLimit() default 0;
+}
@@ -0,0 +1,16 @@
+package com.yupi.yurpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记服务实现类上的方法为幂等、可合并：
+ * 服务、方法、参数（序列化后）完全相同的并发请求只执行一次，结果分发给所有等待的请求（single-flight）。
+ * 仅用于无副作用的读方法。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -0,0 +1,37 @@
+package com.yupi.yurpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 服务端响应缓存，标注在服务实现类的读方法上：
+ * 以 方法 + 序列化后的参数 为键缓存已序列化的响应体，命中时跳过方法调用与响应序列化，直接写出。
+ * 只缓存正常返回的结果（不缓存异常与拒绝）；异步方法同样适用。数值属性小于等于 0 时使用全局配置。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ResponseCache {
+
+    /**
+     * 写入后的存活时间 (ms)
+     *
+     * @return
+     */
+    long ttlMillis() default 0;
+
+    /**
+     * 最大条目数（未设置最大字节数时生效）
+     *
+     * @return
+     */
+    long maxEntries() default 0;
+
+    /**
+     * 最大字节数（按序列化后的响应体大小计算），设置后代替最大条目数
+     *
+     * @return
+     */
+    long maxBytes() default 0;
+}
@@ -0,0 +1,24 @@
+package com.yupi.yurpc.annotation;
+
+import com.yupi.yurpc.server.executor.ExecutorKeys;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定服务实现类（或其某个方法）在服务端使用的业务执行器，覆盖全局配置。
+ * 方法上的注解优先于类上的注解。
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcExecutor {
+
+    /**
+     * 执行器类型，取值见 {@link ExecutorKeys}
+     *
+     * @return
+     */
+    String value() default ExecutorKeys.THREAD_POOL;
+}
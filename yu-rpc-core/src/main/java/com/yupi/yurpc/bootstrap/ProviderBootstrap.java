@@ -5,6 +5,7 @@ import com.yupi.yurpc.config.RegistryConfig;
 import com.yupi.yurpc.config.RpcConfig;
 import com.yupi.yurpc.model.ServiceMetaInfo;
 import com.yupi.yurpc.model.ServiceRegisterInfo;
+import com.yupi.yurpc.protocol.ProtocolConstant;
 import com.yupi.yurpc.registry.LocalRegistry;
 import com.yupi.yurpc.registry.Registry;
 import com.yupi.yurpc.registry.RegistryFactory;
@@ -32,7 +33,7 @@ public class ProviderBootstrap {
         for (ServiceRegisterInfo<?> serviceRegisterInfo : serviceRegisterInfoList) {
             // 2.1本地注册
             String serviceName = serviceRegisterInfo.getServiceName();
-            LocalRegistry.register(serviceName, serviceRegisterInfo.getServiceClass());
+            LocalRegistry.register(serviceName, serviceRegisterInfo.getServiceClass(), serviceRegisterInfo.getScope());
             // 2.2注册服务到注册中心
             RegistryConfig registryConfig = rpcConfig.getRegistryConfig();
             Registry registry = RegistryFactory.getInstance(registryConfig.getRegistry());
@@ -40,6 +41,7 @@ public class ProviderBootstrap {
             serviceMetaInfo.setServiceName(serviceName);
             serviceMetaInfo.setServiceHost(rpcConfig.getServerHost());
             serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            serviceMetaInfo.setProtocolVersion((int) ProtocolConstant.PROTOCOL_VERSION);
             try {
                 registry.register(serviceMetaInfo);
             } catch (Exception e) {
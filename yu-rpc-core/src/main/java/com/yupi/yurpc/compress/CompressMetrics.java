@@ -0,0 +1,76 @@
+package com.yupi.yurpc.compress;
+
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 压缩指标：按服务方法统计压缩前后的字节数、压缩耗时与压缩率，按压缩算法统计解压字节数与耗时
+ */
+public class CompressMetrics {
+
+    /**
+     * 服务方法 -> 指标名前缀（首次记录时注册该方法的压缩率仪表）
+     */
+    private static final Map<String, String> PREFIX_MAP = new ConcurrentHashMap<>();
+
+    private CompressMetrics() {
+    }
+
+    /**
+     * 记录一次压缩
+     *
+     * @param method           服务名#方法名
+     * @param originalLength   原始消息体字节数
+     * @param compressedLength 压缩后的消息体字节数
+     * @param costNanos        压缩耗时
+     */
+    public static void recordCompress(String method, int originalLength, int compressedLength, long costNanos) {
+        String prefix = prefix(method);
+        RpcMetrics.add(prefix + ".original.bytes", originalLength);
+        RpcMetrics.add(prefix + ".compressed.bytes", compressedLength);
+        RpcMetrics.add(prefix + ".nanos", costNanos);
+    }
+
+    /**
+     * 记录一次压缩后不更小（按原样发送）的压缩尝试
+     *
+     * @param method    服务名#方法名
+     * @param costNanos 压缩耗时
+     */
+    public static void recordIncompressible(String method, long costNanos) {
+        String prefix = prefix(method);
+        RpcMetrics.increment(prefix + ".incompressible");
+        RpcMetrics.add(prefix + ".nanos", costNanos);
+    }
+
+    /**
+     * 记录一次解压
+     *
+     * @param compressor     压缩算法
+     * @param originalLength 解压后的字节数
+     * @param costNanos      解压耗时
+     */
+    public static void recordDecompress(String compressor, int originalLength, long costNanos) {
+        RpcMetrics.add(MetricNames.DECOMPRESS_PREFIX + compressor + ".bytes", originalLength);
+        RpcMetrics.add(MetricNames.DECOMPRESS_PREFIX + compressor + ".nanos", costNanos);
+    }
+
+    private static String prefix(String method) {
+        String prefix = PREFIX_MAP.get(method);
+        if (prefix != null) {
+            return prefix;
+        }
+        return PREFIX_MAP.computeIfAbsent(method, key -> {
+            String newPrefix = MetricNames.COMPRESS_PREFIX + key;
+            // 压缩率：压缩后字节数占原始字节数的百分比，越小越好
+            RpcMetrics.registerGauge(newPrefix + ".ratio", () -> {
+                long original = RpcMetrics.getCounter(newPrefix + ".original.bytes");
+                return original == 0 ? 0 : RpcMetrics.getCounter(newPrefix + ".compressed.bytes") * 100 / original;
+            });
+            return newPrefix;
+        });
+    }
+}
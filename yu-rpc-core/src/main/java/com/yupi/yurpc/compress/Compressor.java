@@ -0,0 +1,41 @@
+package com.yupi.yurpc.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 压缩器接口（消息体压缩）
+ */
+public interface Compressor {
+
+    /**
+     * 压缩
+     *
+     * @param data 原始数据
+     * @return 压缩数据
+     * @throws IOException
+     */
+    byte[] compress(byte[] data) throws IOException;
+
+    /**
+     * 解压（直接读取接收缓冲区，不先复制成字节数组）
+     *
+     * @param data           压缩数据（从 position 读到 limit）
+     * @param originalLength 原始数据长度（随压缩数据一起传输，调用方负责校验上限）
+     * @return 原始数据
+     * @throws IOException 数据损坏或与原始长度不符
+     */
+    byte[] decompress(ByteBuffer data, int originalLength) throws IOException;
+
+    /**
+     * 解压
+     *
+     * @param data           压缩数据
+     * @param originalLength 原始数据长度
+     * @return 原始数据
+     * @throws IOException 数据损坏或与原始长度不符
+     */
+    default byte[] decompress(byte[] data, int originalLength) throws IOException {
+        return decompress(ByteBuffer.wrap(data), originalLength);
+    }
+}
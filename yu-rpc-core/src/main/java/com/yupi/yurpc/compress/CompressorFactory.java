@@ -0,0 +1,23 @@
+package com.yupi.yurpc.compress;
+
+import com.yupi.yurpc.spi.SpiLoader;
+
+/**
+ * 压缩器工厂
+ */
+public class CompressorFactory {
+
+    static {
+        SpiLoader.load(Compressor.class);
+    }
+
+    /**
+     * 获取压缩器实例
+     *
+     * @param key 压缩器类型
+     * @return 压缩器实例
+     */
+    public static Compressor getInstance(String key) {
+        return SpiLoader.getInstance(Compressor.class, key);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yupi.yurpc.compress;
+
+/**
+ * 压缩器键名
+ */
+public interface CompressorKeys {
+
+    /**
+     * 不压缩
+     */
+    String NONE = "none";
+
+    /**
+     * LZ4 块格式，速度优先
+     */
+    String LZ4 = "lz4";
+
+    /**
+     * DEFLATE（zlib 格式），压缩率优先
+     */
+    String DEFLATE = "deflate";
+}
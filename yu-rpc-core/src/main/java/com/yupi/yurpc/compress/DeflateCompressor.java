@@ -0,0 +1,60 @@
+package com.yupi.yurpc.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * DEFLATE 压缩器（JDK 内置 zlib，带 Adler-32 校验）
+ * Deflater、Inflater 持有本地内存，按线程复用，避免每帧创建
+ */
+public class DeflateCompressor implements Compressor {
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] output = new byte[Math.max(64, data.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    @Override
+    public byte[] decompress(ByteBuffer data, int originalLength) throws IOException {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data);
+        byte[] output = new byte[originalLength];
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(output, length, output.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary() || length == output.length)) {
+                    break;
+                }
+                length += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("DEFLATE 数据损坏", e);
+        }
+        if (!inflater.finished() || length != originalLength) {
+            throw new IOException("DEFLATE 解压长度不符，期望 " + originalLength + "，实际 " + length);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,192 @@
+package com.yupi.yurpc.compress;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * LZ4 压缩器（纯 Java 实现的 LZ4 块格式，不含帧头与校验）
+ * 每个序列为：token（高 4 位字面量长度、低 4 位匹配长度 - 4） + 字面量 + 匹配偏移（2 字节小端） + 超长长度的续接字节。
+ * 压缩时用哈希表记录 4 字节序列最近出现的位置，贪心取首个匹配，单遍扫描，速度优先。
+ */
+public class Lz4Compressor implements Compressor {
+
+    private static final int MIN_MATCH = 4;
+
+    /**
+     * 最后 5 个字节必须是字面量
+     */
+    private static final int LAST_LITERALS = 5;
+
+    /**
+     * 最后一个匹配必须在结束前 12 个字节之前开始
+     */
+    private static final int MF_LIMIT = 12;
+
+    private static final int MAX_DISTANCE = 65535;
+
+    private static final int HASH_LOG = 12;
+
+    /**
+     * 连续未命中时逐渐加大步长，不可压缩的数据可以快速跳过
+     */
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final ThreadLocal<int[]> HASH_TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    @Override
+    public byte[] compress(byte[] src) {
+        int length = src.length;
+        byte[] dst = new byte[length + length / 255 + 16];
+        int op = 0;
+        int anchor = 0;
+        if (length > MF_LIMIT) {
+            int[] table = HASH_TABLE.get();
+            Arrays.fill(table, -1);
+            int mfLimit = length - MF_LIMIT;
+            int matchLimit = length - LAST_LITERALS;
+            int ip = 0;
+            int searchCount = 1 << SKIP_TRIGGER;
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int hash = hash(sequence);
+                int ref = table[hash];
+                table[hash] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    ip += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount = 1 << SKIP_TRIGGER;
+                // 向前扩展匹配
+                while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+                ip += matchLength;
+                anchor = ip;
+                if (ip < mfLimit) {
+                    // 记录匹配末尾附近的位置，提高下一个匹配的命中率
+                    table[hash(readInt(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+        // 剩余数据作为最后一个序列的字面量（无匹配部分）
+        op = writeSequence(src, anchor, length - anchor, 0, 0, dst, op);
+        return Arrays.copyOf(dst, op);
+    }
+
+    @Override
+    public byte[] decompress(ByteBuffer src, int originalLength) throws IOException {
+        byte[] dst = new byte[originalLength];
+        int op = 0;
+        try {
+            while (src.hasRemaining()) {
+                int token = src.get() & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    literalLength += readExtraLength(src);
+                }
+                src.get(dst, op, literalLength);
+                op += literalLength;
+                if (!src.hasRemaining()) {
+                    // 最后一个序列没有匹配部分
+                    break;
+                }
+                int offset = (src.get() & 0xFF) | (src.get() & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    matchLength += readExtraLength(src);
+                }
+                matchLength += MIN_MATCH;
+                int ref = op - offset;
+                if (offset == 0 || ref < 0 || matchLength > originalLength - op) {
+                    throw new IOException("LZ4 数据损坏，偏移 " + offset + "，位置 " + op);
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, ref, dst, op, matchLength);
+                    op += matchLength;
+                } else {
+                    // 重叠匹配（如连续重复的字节）只能逐字节复制
+                    for (int i = 0; i < matchLength; i++) {
+                        dst[op++] = dst[ref++];
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("LZ4 数据损坏", e);
+        }
+        if (op != originalLength) {
+            throw new IOException("LZ4 解压长度不符，期望 " + originalLength + "，实际 " + op);
+        }
+        return dst;
+    }
+
+    /**
+     * 读取超过 15 的长度的续接字节
+     */
+    private static int readExtraLength(ByteBuffer src) throws IOException {
+        int length = 0;
+        int b;
+        do {
+            b = src.get() & 0xFF;
+            length += b;
+            if (length < 0) {
+                throw new IOException("LZ4 数据损坏，长度溢出");
+            }
+        } while (b == 255);
+        return length;
+    }
+
+    /**
+     * 写入一个序列：token、字面量（及超长的字面量长度）、匹配偏移与超长的匹配长度
+     *
+     * @param matchLength 匹配长度，0 表示没有匹配部分（最后一个序列）
+     * @return 写入后的位置
+     */
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength,
+                                     byte[] dst, int op) {
+        int matchToken = matchLength == 0 ? 0 : matchLength - MIN_MATCH;
+        dst[op++] = (byte) (Math.min(literalLength, 15) << 4 | Math.min(matchToken, 15));
+        if (literalLength >= 15) {
+            op = writeExtraLength(literalLength - 15, dst, op);
+        }
+        System.arraycopy(src, literalStart, dst, op, literalLength);
+        op += literalLength;
+        if (matchLength == 0) {
+            return op;
+        }
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        if (matchToken >= 15) {
+            op = writeExtraLength(matchToken - 15, dst, op);
+        }
+        return op;
+    }
+
+    /**
+     * 超过 15 的长度以若干个 255 加一个小于 255 的字节续接
+     */
+    private static int writeExtraLength(int length, byte[] dst, int op) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] src, int index) {
+        return (src[index] & 0xFF) | (src[index + 1] & 0xFF) << 8
+                | (src[index + 2] & 0xFF) << 16 | (src[index + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
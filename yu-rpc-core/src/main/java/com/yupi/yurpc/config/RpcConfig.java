@@ -1,9 +1,12 @@
 package com.yupi.yurpc.config;
 
+import com.yupi.yurpc.compress.CompressorKeys;
 import com.yupi.yurpc.fault.retry.RetryStrategyKeys;
 import com.yupi.yurpc.fault.tolerant.TolerantStrategyKeys;
 import com.yupi.yurpc.loadbalancer.LoadBalancerKeys;
 import com.yupi.yurpc.serializer.SerializerKeys;
+import com.yupi.yurpc.server.executor.ExecutorKeys;
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiterKeys;
 import lombok.Data;
 
 /**
@@ -32,6 +35,16 @@ public class RpcConfig {
      */
     private Integer serverPort = 8080;
 
+    /**
+     * TCP 服务器 Verticle 实例数（每个实例绑定一个 event loop），默认等于 CPU 核数
+     */
+    private int serverInstances = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 优雅停机时等待在途请求处理完成的最长时间 (ms)
+     */
+    private long shutdownTimeoutMillis = 10000L;
+
     /**
      * 是否开启模拟调用
      */
@@ -67,6 +80,56 @@ public class RpcConfig {
      */
     private String tolerantStrategy = TolerantStrategyKeys.FAIL_FAST;
 
+    /**
+     * 客户端连接池配置
+     */
+    private ConnectionPoolConfig connectionPoolConfig = new ConnectionPoolConfig();
+
+    /**
+     * 客户端批量写配置
+     */
+    private WriteBatchConfig writeBatchConfig = new WriteBatchConfig();
+
+    /**
+     * 客户端背压（在途请求上限）配置
+     */
+    private BackpressureConfig backpressureConfig = new BackpressureConfig();
+
+    /**
+     * 服务端业务执行器配置
+     */
+    private ServerExecutorConfig serverExecutorConfig = new ServerExecutorConfig();
+
+    /**
+     * 服务端舱壁隔离配置
+     */
+    private BulkheadConfig bulkheadConfig = new BulkheadConfig();
+
+    /**
+     * 服务端响应缓存配置
+     */
+    private ResponseCacheConfig responseCacheConfig = new ResponseCacheConfig();
+
+    /**
+     * 服务端自适应并发限制配置
+     */
+    private ConcurrencyLimitConfig concurrencyLimitConfig = new ConcurrencyLimitConfig();
+
+    /**
+     * 网络传输配置（客户端与服务端共用）
+     */
+    private TransportConfig transportConfig = new TransportConfig();
+
+    /**
+     * 心跳与空闲连接回收配置
+     */
+    private HeartbeatConfig heartbeatConfig = new HeartbeatConfig();
+
+    /**
+     * 消息体压缩配置（客户端压缩请求、服务端压缩响应）
+     */
+    private CompressConfig compressConfig = new CompressConfig();
+
     /**
      * 内部配置类：专门管理重试的参数
      */
@@ -97,4 +160,305 @@ public class RpcConfig {
          */
         private double jitter = 0.2;
     }
+
+    /**
+     * 内部配置类：客户端连接池参数（按服务地址 host:port 维度）
+     */
+    @Data
+    public static class ConnectionPoolConfig {
+        /**
+         * 每个服务地址的最小连接数
+         */
+        private int minConnections = 1;
+
+        /**
+         * 每个服务地址的最大连接数
+         */
+        private int maxConnections = 4;
+
+        /**
+         * 是否预热（首次访问某地址时立即建立 minConnections 条连接）
+         */
+        private boolean warmUp = false;
+
+        /**
+         * 建立连接超时时间 (ms)
+         */
+        private int connectTimeoutMillis = 3000;
+
+        /**
+         * 连接失败后的初始退避时间 (ms)，连续失败时翻倍
+         */
+        private long connectBackoffInitialMillis = 100L;
+
+        /**
+         * 连接失败后的最大退避时间 (ms)
+         */
+        private long connectBackoffMaxMillis = 10000L;
+
+        /**
+         * 收到 GOAWAY 后负载均衡跳过该地址的最长时间 (ms)，期间与该地址建连成功则提前恢复
+         */
+        private long drainingMillis = 10000L;
+    }
+
+    /**
+     * 内部配置类：客户端批量写（写合并）参数
+     */
+    @Data
+    public static class WriteBatchConfig {
+        /**
+         * 是否开启批量写（默认关闭，每个请求单独写出）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 合并窗口 (ms)，0 表示只合并同一个 event loop tick 内到达的帧
+         */
+        private long flushIntervalMillis = 0L;
+
+        /**
+         * 单批次最大帧数
+         */
+        private int maxFrames = 64;
+
+        /**
+         * 单批次最大字节数
+         */
+        private int maxBytes = 64 * 1024;
+    }
+
+    /**
+     * 内部配置类：客户端背压参数
+     */
+    @Data
+    public static class BackpressureConfig {
+        /**
+         * 单条连接的最大在途请求数
+         */
+        private int maxInFlightPerConnection = 1024;
+
+        /**
+         * 单个服务地址的最大在途请求数（池内所有连接之和）
+         */
+        private int maxInFlightPerAddress = 4096;
+
+        /**
+         * 达到上限时是否快速失败；false 表示在有界队列中等待名额
+         */
+        private boolean failFast = true;
+
+        /**
+         * 等待名额的最长时间 (ms)，超时后拒绝
+         */
+        private long maxWaitMillis = 100L;
+
+        /**
+         * 每个服务地址最多等待名额的请求数，超出后直接拒绝
+         */
+        private int maxWaiters = 1024;
+    }
+
+    /**
+     * 内部配置类：服务端业务执行器参数（服务调用不在 event loop 上执行）
+     */
+    @Data
+    public static class ServerExecutorConfig {
+        /**
+         * 默认执行器类型，见 ExecutorKeys（threadPool / priority / virtual / inline），可被 @RpcExecutor 覆盖。
+         * threadPool 与舱壁按优先级排队；只有 priority 会在队列满时挤出低优先级请求；virtual、inline 不区分优先级
+         */
+        private String type = ExecutorKeys.THREAD_POOL;
+
+        /**
+         * 核心线程数（priority 执行器的固定线程数）
+         */
+        private int coreThreads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+        /**
+         * 最大线程数（队列满后才会扩展到该值）
+         */
+        private int maxThreads = 200;
+
+        /**
+         * 任务队列容量，队列与线程都满时拒绝请求
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * 非核心线程空闲存活时间 (ms)
+         */
+        private long keepAliveMillis = 60000L;
+    }
+
+    /**
+     * 内部配置类：服务端舱壁隔离参数（可被 @Bulkhead 按服务、按方法覆盖）
+     */
+    @Data
+    public static class BulkheadConfig {
+        /**
+         * 是否默认为每个服务分配独立舱壁；关闭时只有标注 @Bulkhead 的服务（方法）隔离
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个舱壁的最大并发执行数（线程数）
+         */
+        private int maxConcurrency = 20;
+
+        /**
+         * 每个舱壁的排队上限，0 表示不排队
+         */
+        private int queueCapacity = 100;
+    }
+
+    /**
+     * 内部配置类：服务端响应缓存默认参数（可被 @ResponseCache 按方法覆盖）
+     */
+    @Data
+    public static class ResponseCacheConfig {
+        /**
+         * 写入后的存活时间 (ms)
+         */
+        private long ttlMillis = 60000L;
+
+        /**
+         * 每个方法最多缓存的条目数（未设置最大字节数时生效）
+         */
+        private long maxEntries = 10000L;
+
+        /**
+         * 每个方法最多缓存的字节数，0 表示按条目数限制
+         */
+        private long maxBytes = 0L;
+    }
+
+    /**
+     * 内部配置类：服务端自适应并发限制参数（可被 @ConcurrencyLimit 按服务、按方法覆盖）
+     */
+    @Data
+    public static class ConcurrencyLimitConfig {
+        /**
+         * 限制算法，见 ConcurrencyLimiterKeys（none / vegas / gradient）
+         */
+        private String algorithm = ConcurrencyLimiterKeys.NONE;
+
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 20;
+
+        /**
+         * 最小并发上限
+         */
+        private int minLimit = 4;
+
+        /**
+         * 最大并发上限
+         */
+        private int maxLimit = 1000;
+    }
+
+    /**
+     * 内部配置类：网络传输参数，同时作用于 NetServerOptions 与 NetClientOptions
+     */
+    @Data
+    public static class TransportConfig {
+        /**
+         * 是否优先使用原生传输（Linux 下为 epoll），不可用时自动回退到 NIO
+         */
+        private boolean preferNativeTransport = true;
+
+        /**
+         * TCP_NODELAY，关闭 Nagle 算法，降低小包时延
+         */
+        private boolean tcpNoDelay = true;
+
+        /**
+         * SO_KEEPALIVE，降低空闲连接被网络设备回收后“半开”不可见的概率
+         */
+        private boolean tcpKeepAlive = true;
+
+        /**
+         * SO_REUSEPORT（需原生传输），多个监听套接字由内核分摊新连接
+         */
+        private boolean reusePort = false;
+
+        /**
+         * TCP_FASTOPEN（需原生传输）
+         */
+        private boolean tcpFastOpen = false;
+
+        /**
+         * TCP_QUICKACK（需原生传输），立即回复 ACK
+         */
+        private boolean tcpQuickAck = false;
+
+        /**
+         * SO_SNDBUF（字节），小于等于 0 表示使用系统默认值
+         */
+        private int sendBufferSize = -1;
+
+        /**
+         * SO_RCVBUF（字节），小于等于 0 表示使用系统默认值
+         */
+        private int receiveBufferSize = -1;
+
+        /**
+         * 请求、响应帧编码是否使用池化直接内存，false 时使用池化堆内存
+         */
+        private boolean directBuffer = true;
+    }
+
+    /**
+     * 内部配置类：心跳与空闲连接回收参数
+     */
+    @Data
+    public static class HeartbeatConfig {
+        /**
+         * 是否开启客户端主动心跳（只对支持 v2 的提供者生效）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 心跳间隔 (ms)，连接超过该时间未收到任何帧时发送心跳
+         */
+        private long intervalMillis = 15000L;
+
+        /**
+         * 连续未收到任何帧的心跳周期数上限，超过则判定连接失效并淘汰
+         */
+        private int maxMissed = 3;
+
+        /**
+         * 客户端空闲连接 TTL (ms)，超过该时间无业务请求且无在途请求的连接会被关闭（每个地址至少保留 minConnections 条）
+         */
+        private long idleTimeoutMillis = 600000L;
+
+        /**
+         * 服务端空闲超时 (ms)，超过该时间未收到任何数据（包括心跳）的连接会被关闭，0 表示不关闭
+         */
+        private long serverIdleTimeoutMillis = 180000L;
+    }
+
+    /**
+     * 内部配置类：消息体压缩参数（只压缩 v2 帧，接收方按帧中的压缩标记解压）
+     */
+    @Data
+    public static class CompressConfig {
+        /**
+         * 压缩算法，见 CompressorKeys（none / lz4 / deflate）
+         */
+        private String compressor = CompressorKeys.NONE;
+
+        /**
+         * 压缩阈值（字节），序列化后的消息体小于该值时不压缩
+         */
+        private int threshold = 2048;
+
+        /**
+         * 解压后消息体的最大长度（字节），对端声明的原始长度超过该值时拒绝解压，避免按伪造的长度分配内存
+         */
+        private int maxDecompressedLength = 16 * 1024 * 1024;
+    }
 }
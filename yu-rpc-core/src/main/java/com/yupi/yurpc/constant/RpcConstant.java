@@ -19,4 +19,19 @@ public interface RpcConstant {
      * 默认服务版本
      */
     String DEFAULT_SERVICE_VERSION = "1.0";
+
+    /**
+     * 默认请求优先级（数值越大越优先，服务端过载时优先丢弃、延后低优先级请求）
+     */
+    int DEFAULT_PRIORITY = 0;
+
+    /**
+     * 交互式（延迟敏感）请求优先级
+     */
+    int HIGH_PRIORITY = 10;
+
+    /**
+     * 批处理请求优先级
+     */
+    int LOW_PRIORITY = -10;
 }
@@ -0,0 +1,154 @@
+package com.yupi.yurpc.context;
+
+import com.yupi.yurpc.protocol.AttachmentKeys;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RPC 调用上下文（线程级）
+ * 1. 服务端执行服务方法前写入本次请求的截止时间，方法内发起的嵌套 RPC 据此缩短自身超时，
+ * 使整条调用链共享调用方的剩余时间；
+ * 2. 请求优先级：消费端可在调用前设置，覆盖代理上配置的优先级，对当前线程后续调用生效直到清除；
+ * 服务端执行服务方法时写入请求的优先级，嵌套 RPC 沿用；
+ * 3. 附件：消费端设置的键值对随请求的 v2 消息头发送（如链路追踪 id、鉴权令牌），对当前线程后续调用生效直到清除；
+ * 服务端执行服务方法时可读取请求携带的附件，嵌套 RPC 继续透传。v1 提供者不接收附件。
+ * 注意：上下文只在执行服务方法的线程内有效，方法内切换到其他线程发起的调用不会继承。
+ */
+public class RpcContext {
+
+    private static final ThreadLocal<RpcContext> CONTEXT = ThreadLocal.withInitial(RpcContext::new);
+
+    /**
+     * 截止时间（System.nanoTime 基准）
+     */
+    private long deadlineNanos;
+
+    /**
+     * 是否设置了截止时间
+     */
+    private boolean hasDeadline;
+
+    /**
+     * 请求优先级，为 null 时使用代理上配置的优先级
+     */
+    private Integer priority;
+
+    /**
+     * 附件，未设置时为 null
+     */
+    private Map<String, String> attachments;
+
+    /**
+     * 获取当前线程的上下文
+     *
+     * @return
+     */
+    public static RpcContext getContext() {
+        return CONTEXT.get();
+    }
+
+    /**
+     * 清除当前线程的上下文
+     */
+    public static void removeContext() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * 设置截止时间
+     *
+     * @param deadlineNanos System.nanoTime 基准的截止时间
+     */
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = true;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    /**
+     * 设置当前线程后续调用的优先级
+     *
+     * @param priority 数值越大越优先，null 表示清除
+     */
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 获取附件
+     *
+     * @param key
+     * @return 不存在时返回 null
+     */
+    public String getAttachment(String key) {
+        return attachments == null ? null : attachments.get(key);
+    }
+
+    /**
+     * 设置当前线程后续调用携带的附件
+     *
+     * @param key   键名，"rpc." 前缀保留给框架
+     * @param value 值，null 表示移除
+     */
+    public void setAttachment(String key, String value) {
+        if (value == null) {
+            if (attachments != null) {
+                attachments.remove(key);
+            }
+            return;
+        }
+        if (attachments == null) {
+            attachments = new HashMap<>();
+        }
+        attachments.put(key, value);
+    }
+
+    /**
+     * 获取全部附件（只读）
+     *
+     * @return 没有附件时返回空 Map
+     */
+    public Map<String, String> getAttachments() {
+        return attachments == null ? Collections.emptyMap() : Collections.unmodifiableMap(attachments);
+    }
+
+    /**
+     * 替换全部附件（服务端写入请求携带的附件），框架保留的 "rpc." 附件不写入
+     *
+     * @param attachments 可为 null
+     */
+    public void setAttachments(Map<String, String> attachments) {
+        if (attachments == null) {
+            this.attachments = null;
+            return;
+        }
+        this.attachments = new HashMap<>(attachments.size());
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            if (!AttachmentKeys.isReserved(entry.getKey())) {
+                this.attachments.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数，已过期时返回值 <= 0
+     *
+     * @return 未设置截止时间时返回 Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+}
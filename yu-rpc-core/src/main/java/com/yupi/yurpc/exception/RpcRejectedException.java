@@ -0,0 +1,21 @@
+package com.yupi.yurpc.exception;
+
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+import lombok.Getter;
+
+/**
+ * 请求被服务端拒绝（未执行），调用方可安全地转移到其他节点重试
+ */
+@Getter
+public class RpcRejectedException extends RuntimeException {
+
+    /**
+     * 拒绝原因对应的响应状态
+     */
+    private final ProtocolMessageStatusEnum status;
+
+    public RpcRejectedException(ProtocolMessageStatusEnum status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -1,16 +1,47 @@
 package com.yupi.yurpc.fault.tolerant;
 
+import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.server.tcp.VertxTcpClient;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * 故障转移 - 容错策略
+ * 依次调用失败节点以外的其他服务节点，直到成功；全部失败时抛出异常。
  */
+@Slf4j
 public class FailOverTolerantStrategy implements TolerantStrategy{
     @Override
+    @SuppressWarnings("unchecked")
     public RpcResponse doTolerant(Map<String, Object> context, Exception e) {
-        // TODO 可自行扩展，获取其他服务节点并调用
-        return null;
+        if (context == null) {
+            throw new RuntimeException("Fail-Over. 缺少容错上下文", e);
+        }
+        RpcRequest rpcRequest = (RpcRequest) context.get(TolerantStrategyKeys.CONTEXT_RPC_REQUEST);
+        List<ServiceMetaInfo> serviceMetaInfoList =
+                (List<ServiceMetaInfo>) context.get(TolerantStrategyKeys.CONTEXT_SERVICE_META_INFO_LIST);
+        ServiceMetaInfo failedServiceMetaInfo =
+                (ServiceMetaInfo) context.get(TolerantStrategyKeys.CONTEXT_SELECTED_SERVICE_META_INFO);
+        if (rpcRequest == null || serviceMetaInfoList == null) {
+            throw new RuntimeException("Fail-Over. 缺少容错上下文", e);
+        }
+        Exception lastException = e;
+        for (ServiceMetaInfo serviceMetaInfo : serviceMetaInfoList) {
+            if (failedServiceMetaInfo != null
+                    && serviceMetaInfo.getServiceNodeKey().equals(failedServiceMetaInfo.getServiceNodeKey())) {
+                continue;
+            }
+            try {
+                log.info("Fail-Over. 转移到节点 {}", serviceMetaInfo.getServiceNodeKey());
+                return VertxTcpClient.doRequest(rpcRequest, serviceMetaInfo);
+            } catch (Exception ex) {
+                lastException = ex;
+            }
+        }
+        throw new RuntimeException("Fail-Over. 所有节点均调用失败", lastException);
     }
 }
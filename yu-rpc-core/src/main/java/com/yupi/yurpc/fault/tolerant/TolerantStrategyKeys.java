@@ -24,4 +24,19 @@ public interface TolerantStrategyKeys {
      * 静默处理
      */
     String FAIL_SAFE = "failSafe";
+
+    /**
+     * 容错上下文：本次调用的请求（RpcRequest）
+     */
+    String CONTEXT_RPC_REQUEST = "rpcRequest";
+
+    /**
+     * 容错上下文：服务节点列表（List<ServiceMetaInfo>）
+     */
+    String CONTEXT_SERVICE_META_INFO_LIST = "serviceMetaInfoList";
+
+    /**
+     * 容错上下文：本次调用失败的节点（ServiceMetaInfo）
+     */
+    String CONTEXT_SELECTED_SERVICE_META_INFO = "selectedServiceMetaInfo";
 }
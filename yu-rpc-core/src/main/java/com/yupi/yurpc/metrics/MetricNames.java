@@ -0,0 +1,122 @@
+package com.yupi.yurpc.metrics;
+
+/**
+ * 指标名称
+ */
+public interface MetricNames {
+
+    /**
+     * 客户端请求超时次数
+     */
+    String CLIENT_REQUEST_TIMEOUT = "rpc.client.request.timeout";
+
+    /**
+     * 客户端写出的协议帧数
+     */
+    String CLIENT_WRITE_FRAMES = "rpc.client.write.frames";
+
+    /**
+     * 客户端批量写次数（每批一次 socket.write）
+     */
+    String CLIENT_WRITE_BATCHES = "rpc.client.write.batches";
+
+    /**
+     * 客户端因在途请求达到上限而拒绝的请求数
+     */
+    String CLIENT_REQUEST_REJECTED = "rpc.client.request.rejected";
+
+    /**
+     * 服务端业务线程池排队任务数
+     */
+    String SERVER_EXECUTOR_QUEUE_DEPTH = "rpc.server.executor.queue.depth";
+
+    /**
+     * 服务端业务线程池活跃线程数
+     */
+    String SERVER_EXECUTOR_ACTIVE_THREADS = "rpc.server.executor.active.threads";
+
+    /**
+     * 服务端因业务线程池饱和而拒绝的请求数
+     */
+    String SERVER_EXECUTOR_REJECTED = "rpc.server.executor.rejected";
+
+    /**
+     * 服务端因并发限制而拒绝的请求数
+     */
+    String SERVER_LIMITER_REJECTED = "rpc.server.limiter.rejected";
+
+    /**
+     * 服务端并发上限（仪表，后接服务名或 服务名#方法名）
+     */
+    String SERVER_LIMITER_LIMIT_PREFIX = "rpc.server.limiter.limit.";
+
+    /**
+     * 服务端因超过调用方截止时间而跳过执行的请求数
+     */
+    String SERVER_DEADLINE_EXCEEDED = "rpc.server.deadline.exceeded";
+
+    /**
+     * 服务端 priority 执行器排队任务数
+     */
+    String SERVER_PRIORITY_EXECUTOR_QUEUE_DEPTH = "rpc.server.executor.priority.queue.depth";
+
+    /**
+     * 服务端 priority 执行器活跃线程数
+     */
+    String SERVER_PRIORITY_EXECUTOR_ACTIVE_THREADS = "rpc.server.executor.priority.active.threads";
+
+    /**
+     * 服务端优先级队列已满时被更高优先级请求挤出（丢弃）的请求数
+     */
+    String SERVER_PRIORITY_SHED = "rpc.server.priority.shed";
+
+    /**
+     * 服务端请求合并：与进行中的相同请求合并（未执行）的请求数
+     */
+    String SERVER_COALESCE_HIT = "rpc.server.coalesce.hit";
+
+    /**
+     * 服务端请求合并：可合并方法上实际执行的请求数
+     */
+    String SERVER_COALESCE_MISS = "rpc.server.coalesce.miss";
+
+    /**
+     * 服务端请求合并命中率（百分比，仪表）
+     */
+    String SERVER_COALESCE_HIT_RATIO = "rpc.server.coalesce.hit.ratio";
+
+    /**
+     * 服务端响应缓存命中数
+     */
+    String SERVER_CACHE_HIT = "rpc.server.cache.hit";
+
+    /**
+     * 服务端响应缓存未命中数
+     */
+    String SERVER_CACHE_MISS = "rpc.server.cache.miss";
+
+    /**
+     * 服务端响应缓存命中率（百分比，仪表）
+     */
+    String SERVER_CACHE_HIT_RATIO = "rpc.server.cache.hit.ratio";
+
+    /**
+     * 服务端按方法的响应缓存指标前缀（后接 实现类#方法名(参数类型,...) 及 .hit / .miss / .hit.ratio / .size）
+     */
+    String SERVER_CACHE_METHOD_PREFIX = "rpc.server.cache.method.";
+
+    /**
+     * 舱壁指标前缀（后接舱壁名称及 .active / .queue.depth / .utilization / .rejected）
+     */
+    String SERVER_BULKHEAD_PREFIX = "rpc.server.bulkhead.";
+
+    /**
+     * 压缩指标前缀（后接 服务名#方法名 及 .original.bytes / .compressed.bytes / .nanos / .ratio / .incompressible）
+     */
+    String COMPRESS_PREFIX = "rpc.compress.";
+
+    /**
+     * 解压指标前缀（后接压缩算法及 .bytes / .nanos）
+     */
+    String DECOMPRESS_PREFIX = "rpc.decompress.";
+}
@@ -0,0 +1,85 @@
+package com.yupi.yurpc.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * RPC 运行指标（进程内计数器 + 仪表）
+ * 计数器基于 LongAdder，高并发下累加无竞争；仪表在读取时实时计算，例如队列深度。
+ */
+public class RpcMetrics {
+
+    /**
+     * 计数器：指标名 -> 累加值
+     */
+    private static final Map<String, LongAdder> COUNTER_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 仪表：指标名 -> 取值函数
+     */
+    private static final Map<String, Supplier<Number>> GAUGE_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 计数器加一
+     *
+     * @param name 指标名
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 计数器累加
+     *
+     * @param name  指标名
+     * @param delta 增量
+     */
+    public static void add(String name, long delta) {
+        COUNTER_MAP.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 获取计数器当前值
+     *
+     * @param name 指标名
+     * @return 不存在时返回 0
+     */
+    public static long getCounter(String name) {
+        LongAdder counter = COUNTER_MAP.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * 注册仪表（同名覆盖）
+     *
+     * @param name     指标名
+     * @param supplier 取值函数
+     */
+    public static void registerGauge(String name, Supplier<Number> supplier) {
+        GAUGE_MAP.put(name, supplier);
+    }
+
+    /**
+     * 移除仪表
+     *
+     * @param name 指标名
+     */
+    public static void removeGauge(String name) {
+        GAUGE_MAP.remove(name);
+    }
+
+    /**
+     * 获取所有指标的快照（按指标名排序）
+     *
+     * @return
+     */
+    public static Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+        COUNTER_MAP.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        GAUGE_MAP.forEach((name, supplier) -> snapshot.put(name, supplier.get()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,44 @@
+package com.yupi.yurpc.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 方法 id 表（连接握手时由提供者下发）
+ * 握手完成后，请求只需携带方法 id，不再发送服务名、方法名与参数类型列表
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MethodTable implements Serializable {
+
+    /**
+     * 方法签名 -> 方法 id，签名格式见 {@link #signature}
+     */
+    private Map<String, Integer> methodIds;
+
+    /**
+     * 方法签名：服务名#方法名(参数类型1,参数类型2)
+     *
+     * @param serviceName
+     * @param methodName
+     * @param parameterTypes 无参方法可为 null
+     * @return
+     */
+    public static String signature(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        StringBuilder builder = new StringBuilder(serviceName).append('#').append(methodName).append('(');
+        if (parameterTypes != null) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(parameterTypes[i].getName());
+            }
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -1,5 +1,6 @@
 package com.yupi.yurpc.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.yupi.yurpc.constant.RpcConstant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,6 +18,11 @@ import java.io.Serializable;
 @NoArgsConstructor
 public class RpcRequest implements Serializable {
 
+    /**
+     * 固定为新增字段前计算出的值，与旧版本互通
+     */
+    private static final long serialVersionUID = -6683391126719412376L;
+
     /**
      * 服务名称
      */
@@ -42,5 +48,20 @@ public class RpcRequest implements Serializable {
      */
     private Object[] args;
 
+    /**
+     * 剩余超时时间（毫秒），由调用方在发送时写入，0 表示不限。
+     * 传相对时长而非绝对时间点，避免两端时钟不一致。
+     * 不进入请求体（保持 v1 请求体与旧版本一致），v2 通过消息头附件传递。
+     */
+    @JsonIgnore
+    private transient long timeoutMillis;
+
+    /**
+     * 请求优先级，数值越大越优先，默认 {@link RpcConstant#DEFAULT_PRIORITY}。
+     * 不进入请求体，v2 通过消息头附件传递。
+     */
+    @JsonIgnore
+    private transient int priority;
+
 }
 
@@ -34,6 +34,11 @@ public class ServiceMetaInfo {
      */
     private String serviceGroup = "default";
 
+    /**
+     * 提供者支持的最高协议版本号，消费者据此协商请求使用的版本；为 null 表示早于该字段的提供者，只支持 v1
+     */
+    private Integer protocolVersion;
+
     /**
      * 获取服务键名
      *
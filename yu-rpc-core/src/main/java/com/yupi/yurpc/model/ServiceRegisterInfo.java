@@ -1,5 +1,6 @@
 package com.yupi.yurpc.model;
 
+import com.yupi.yurpc.registry.ServiceScopeEnum;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,4 +23,14 @@ public class ServiceRegisterInfo<T> {
      * 实现类
      */
     private Class<? extends T> serviceClass;
+
+    /**
+     * 服务实例作用域（默认单例）
+     */
+    private ServiceScopeEnum scope = ServiceScopeEnum.SINGLETON;
+
+    public ServiceRegisterInfo(String serviceName, Class<? extends T> serviceClass) {
+        this.serviceName = serviceName;
+        this.serviceClass = serviceClass;
+    }
 }
@@ -0,0 +1,37 @@
+package com.yupi.yurpc.protocol;
+
+/**
+ * 框架使用的附件键名（"rpc." 前缀保留给框架）
+ */
+public interface AttachmentKeys {
+
+    /**
+     * 框架保留的键名前缀
+     */
+    String RESERVED_PREFIX = "rpc.";
+
+    /**
+     * 本次调用的超时时间（ms）
+     */
+    String TIMEOUT = "rpc.timeout";
+
+    /**
+     * 请求优先级
+     */
+    String PRIORITY = "rpc.priority";
+
+    /**
+     * 握手协商的方法 id，携带时请求体中不再有服务名、方法名与参数类型列表
+     */
+    String METHOD_ID = "rpc.mid";
+
+    /**
+     * 是否为框架保留的键名。保留键只对单次调用有效，不能随上下文透传给嵌套调用
+     *
+     * @param key
+     * @return
+     */
+    static boolean isReserved(String key) {
+        return key.startsWith(RESERVED_PREFIX);
+    }
+}
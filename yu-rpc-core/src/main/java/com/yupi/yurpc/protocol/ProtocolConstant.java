@@ -6,17 +6,32 @@ package com.yupi.yurpc.protocol;
 public interface ProtocolConstant {
 
     /**
-     * 消息头长度
+     * 消息头长度（v1）
      */
     int MESSAGE_HEADER_LENGTH = 17;
 
+    /**
+     * v2 消息头中定长部分的长度（魔数、版本号、序列化器、类型、状态），其后为 varint 字段与附件
+     */
+    int MESSAGE_HEADER_FIXED_LENGTH_V2 = 5;
+
     /**
      * 协议魔数
      */
     byte PROTOCOL_MAGIC = 0x1;
 
     /**
-     * 协议版本号
+     * v1：17 字节定长消息头
+     */
+    byte PROTOCOL_VERSION_V1 = 0x1;
+
+    /**
+     * v2：varint 消息头 + 键值对附件，可在不反序列化消息体的情况下读取元数据
+     */
+    byte PROTOCOL_VERSION_V2 = 0x2;
+
+    /**
+     * 本端支持的最高协议版本号，提供者注册时写入服务元信息，消费者据此协商请求使用的版本
      */
-    byte PROTOCOL_VERSION = 0x1;
+    byte PROTOCOL_VERSION = PROTOCOL_VERSION_V2;
 }
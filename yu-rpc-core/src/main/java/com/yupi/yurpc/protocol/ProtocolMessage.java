@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * 协议消息结构
  */
@@ -42,6 +44,11 @@ public class ProtocolMessage<T> {
          */
         private byte serializer;
 
+        /**
+         * 消息体的压缩算法（v2，见 {@link ProtocolMessageCompressorEnum}），0 表示未压缩
+         */
+        private byte compressor;
+
         /**
          * 消息类型，（请求/响应）
          */
@@ -61,5 +68,20 @@ public class ProtocolMessage<T> {
          * 消息体长度
          */
         private int bodyLength;
+
+        /**
+         * 附件（v2），如截止时间、优先级、链路追踪 id 等元数据，为 null 表示没有附件；v1 不传输附件
+         */
+        private Map<String, String> attachments;
+
+        /**
+         * 获取附件
+         *
+         * @param key
+         * @return 不存在时返回 null
+         */
+        public String getAttachment(String key) {
+            return attachments == null ? null : attachments.get(key);
+        }
     }
 }
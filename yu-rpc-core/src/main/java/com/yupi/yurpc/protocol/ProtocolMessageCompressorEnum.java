@@ -0,0 +1,73 @@
+package com.yupi.yurpc.protocol;
+
+import cn.hutool.core.util.ObjectUtil;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 协议消息压缩算法枚举（v2 消息头中占 serializer 字节的高 4 位，取值 0 ~ 15）
+ */
+@Getter
+public enum ProtocolMessageCompressorEnum {
+
+    NONE(0, "none"),
+    LZ4(1, "lz4"),
+    DEFLATE(2, "deflate");
+
+    private final int key;
+
+    private final String value;
+
+    ProtocolMessageCompressorEnum(int key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values())
+                .map(item -> item.value)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 key 获取枚举
+     *
+     * @param key
+     * @return
+     */
+    public static ProtocolMessageCompressorEnum getEnumByKey(int key) {
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.key == key) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static ProtocolMessageCompressorEnum getEnumByValue(String value) {
+        if (ObjectUtil.isEmpty(value)) {
+            return null;
+        }
+
+        for (ProtocolMessageCompressorEnum anEnum : ProtocolMessageCompressorEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -1,36 +1,54 @@
 package com.yupi.yurpc.protocol;
 
+import com.yupi.yurpc.compress.CompressMetrics;
+import com.yupi.yurpc.compress.CompressorFactory;
+import com.yupi.yurpc.model.MethodTable;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
+import com.yupi.yurpc.utils.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.buffer.Buffer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * 协议消息解码器
+ * 协议消息解码器，兼容 v1、v2 两种消息头（格式见 {@link ProtocolMessageEncoder}）
+ * 消息体不复制成字节数组，序列化器直接从底层 ByteBuf 的切片读取（压缩的消息体先解压）
  */
 public class ProtocolMessageDecoder {
 
+    /**
+     * 默认的解压后消息体最大长度（字节）
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * 原始长度与压缩数据长度之比的上限（DEFLATE 理论上限约 1032:1，LZ4 约 255:1），超过则数据必然是伪造的
+     */
+    private static final int MAX_COMPRESSION_RATIO = 1032;
+
     public static ProtocolMessage<?> decode(Buffer buffer) throws IOException {
-        // 分别从指定位置读出 Buffer
+        return decode(buffer, DEFAULT_MAX_DECOMPRESSED_LENGTH);
+    }
+
+    /**
+     * 解码
+     *
+     * @param buffer                完整的一帧
+     * @param maxDecompressedLength 压缩的消息体解压后的最大长度
+     */
+    public static ProtocolMessage<?> decode(Buffer buffer, int maxDecompressedLength) throws IOException {
+        ByteBuf byteBuf = BufferUtils.toByteBuf(buffer);
         ProtocolMessage.Header header = new ProtocolMessage.Header();
-        byte magic = buffer.getByte(0);
-        // 校验魔数
-        if (magic != ProtocolConstant.PROTOCOL_MAGIC) {
-            throw new RuntimeException("Invalid magic number");
-        }
-        header.setMagic(magic);
-        header.setVersion(buffer.getByte(1));
-        header.setSerializer(buffer.getByte(2));
-        header.setType(buffer.getByte(3));
-        header.setStatus(buffer.getByte(4));
-        // 必须读取 8 个字节的 Long
-        header.setRequestId(buffer.getLong(5));
-        header.setBodyLength(buffer.getInt(13));
-        // 解决粘包问题，只读指定长度的数据
-        byte[] bodyBytes = buffer.getBytes(17, 17 + header.getBodyLength());
+        int bodyStart = readHeader(byteBuf, header);
         // 解析消息体，反序列化
         ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
         if (serializerEnum == null) {
@@ -41,17 +59,152 @@ public class ProtocolMessageDecoder {
         if (messageTypeEnum == null) {
             throw new RuntimeException("Invalid message type");
         }
+        // 解决粘包问题，只读指定长度的数据
+        ByteBuf body = byteBuf.slice(bodyStart, header.getBodyLength());
+        InputStream bodyStream = header.getCompressor() == ProtocolMessageCompressorEnum.NONE.getKey()
+                ? new ByteBufInputStream(body)
+                : decompress(header, body, maxDecompressedLength);
         switch (messageTypeEnum) {
             case REQUEST:
-                RpcRequest request = serializer.deserialize(bodyBytes, RpcRequest.class);
+                RpcRequest request = serializer.deserialize(bodyStream, RpcRequest.class);
                 return new ProtocolMessage<>(header, request);
             case RESPONSE:
-                RpcResponse response = serializer.deserialize(bodyBytes, RpcResponse.class);
+                RpcResponse response = serializer.deserialize(bodyStream, RpcResponse.class);
                 return new ProtocolMessage<>(header, response);
+            case HANDSHAKE:
+                MethodTable methodTable = serializer.deserialize(bodyStream, MethodTable.class);
+                return new ProtocolMessage<>(header, methodTable);
             case HEART_BEAT:
+            case GO_AWAY:
+                // 心跳帧、GOAWAY 帧没有消息体
+                return new ProtocolMessage<>(header, null);
             case OTHERS:
             default:
                 throw new RuntimeException("暂不支持该消息类型");
         }
     }
+
+    /**
+     * 只解码消息头（v2 包括附件），不反序列化消息体，可据此在解码消息体之前做路由、准入判断
+     *
+     * @param buffer 完整的消息帧
+     * @return
+     */
+    public static ProtocolMessage.Header decodeHeader(Buffer buffer) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        readHeader(BufferUtils.toByteBuf(buffer), header);
+        return header;
+    }
+
+    /**
+     * 计算可读数据起始处的消息帧总长度（消息头 + 附件 + 消息体），不推进 readerIndex
+     *
+     * @param in
+     * @return 可读数据不足以确定帧长度时返回 -1
+     */
+    public static int frameLength(ByteBuf in) {
+        int start = in.readerIndex();
+        int end = in.writerIndex();
+        if (end - start < 2) {
+            return -1;
+        }
+        if (in.getByte(start + 1) < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            if (end - start < ProtocolConstant.MESSAGE_HEADER_LENGTH) {
+                return -1;
+            }
+            return ProtocolConstant.MESSAGE_HEADER_LENGTH + in.getInt(start + 13);
+        }
+        // v2：定长部分之后依次为 requestId、attachmentsLength、bodyLength 三个 varint
+        int index = start + ProtocolConstant.MESSAGE_HEADER_FIXED_LENGTH_V2;
+        long length = 0;
+        for (int i = 0; i < 3; i++) {
+            int varintLength = Varints.peekVarintLength(in, index, end);
+            if (varintLength < 0) {
+                return -1;
+            }
+            if (i > 0) {
+                // 附件、消息体长度
+                length += Varints.readLength(in.slice(index, varintLength));
+            }
+            index += varintLength;
+        }
+        length += index - start;
+        if (length > Integer.MAX_VALUE) {
+            throw new RuntimeException("Invalid frame length " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * 读取消息头
+     *
+     * @return 消息体的起始位置
+     */
+    private static int readHeader(ByteBuf byteBuf, ProtocolMessage.Header header) {
+        byte magic = byteBuf.getByte(0);
+        // 校验魔数
+        if (magic != ProtocolConstant.PROTOCOL_MAGIC) {
+            throw new RuntimeException("Invalid magic number");
+        }
+        header.setMagic(magic);
+        header.setVersion(byteBuf.getByte(1));
+        header.setType(byteBuf.getByte(3));
+        header.setStatus(byteBuf.getByte(4));
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            header.setSerializer(byteBuf.getByte(2));
+            // 必须读取 8 个字节的 Long
+            header.setRequestId(byteBuf.getLong(5));
+            header.setBodyLength(byteBuf.getInt(13));
+            return ProtocolConstant.MESSAGE_HEADER_LENGTH;
+        }
+        // serializer 字节：低 4 位为序列化器，高 4 位为压缩算法
+        byte serializer = byteBuf.getByte(2);
+        header.setSerializer((byte) (serializer & 0x0F));
+        header.setCompressor((byte) (serializer >> 4 & 0x0F));
+        ByteBuf in = byteBuf.slice();
+        in.readerIndex(ProtocolConstant.MESSAGE_HEADER_FIXED_LENGTH_V2);
+        header.setRequestId(Varints.readVarint(in));
+        int attachmentsLength = Varints.readLength(in);
+        header.setBodyLength(Varints.readLength(in));
+        if (attachmentsLength > 0) {
+            header.setAttachments(readAttachments(in.readSlice(attachmentsLength)));
+        }
+        return in.readerIndex();
+    }
+
+    /**
+     * 解压消息体：originalLength(varint) + 压缩数据
+     */
+    private static InputStream decompress(ProtocolMessage.Header header, ByteBuf body, int maxDecompressedLength)
+            throws IOException {
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(header.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("Invalid compressor");
+        }
+        ByteBuf in = body.duplicate();
+        int originalLength = Varints.readLength(in);
+        // 原始长度来自对端，分配内存前先校验
+        long maxLength = Math.min(maxDecompressedLength, (long) in.readableBytes() * MAX_COMPRESSION_RATIO);
+        if (originalLength > maxLength) {
+            throw new IOException("压缩消息体声明的原始长度 " + originalLength + " 超过上限 " + maxLength);
+        }
+        long startNanos = System.nanoTime();
+        byte[] original = CompressorFactory.getInstance(compressorEnum.getValue())
+                .decompress(in.nioBuffer(), originalLength);
+        CompressMetrics.recordDecompress(compressorEnum.getValue(), originalLength, System.nanoTime() - startNanos);
+        return new ByteArrayInputStream(original);
+    }
+
+    private static Map<String, String> readAttachments(ByteBuf in) {
+        Map<String, String> attachments = new HashMap<>();
+        while (in.isReadable()) {
+            String key = readString(in);
+            attachments.put(key, readString(in));
+        }
+        return attachments;
+    }
+
+    private static String readString(ByteBuf in) {
+        return in.readCharSequence(Varints.readLength(in), StandardCharsets.UTF_8).toString();
+    }
 }
@@ -1,16 +1,37 @@
 package com.yupi.yurpc.protocol;
 
+import com.yupi.yurpc.compress.CompressMetrics;
+import com.yupi.yurpc.compress.Compressor;
+import com.yupi.yurpc.compress.CompressorFactory;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
+import com.yupi.yurpc.utils.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.vertx.core.buffer.Buffer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * 协议消息编码器
+ * 按消息头中的版本号编码：
+ * v1：magic(1) version(1) serializer(1) type(1) status(1) requestId(8) bodyLength(4) body
+ * v2：magic(1) version(1) serializer(1) type(1) status(1) requestId(varint) attachmentsLength(varint)
+ * bodyLength(varint) attachments body，附件为若干组 keyLength(varint) key valueLength(varint) value（UTF-8）；
+ * serializer 字节的低 4 位为序列化器、高 4 位为压缩算法，压缩的消息体为 originalLength(varint) + 压缩数据
  */
 public class ProtocolMessageEncoder {
 
+    /**
+     * 非池化堆内存分配器，用于返回 Vert.x Buffer 的 v2 编码
+     */
+    private static final ByteBufAllocator HEAP_ALLOCATOR = new UnpooledByteBufAllocator(false);
+
     /**
      * 编码
      *
@@ -23,25 +44,278 @@ public class ProtocolMessageEncoder {
             return Buffer.buffer();
         }
         ProtocolMessage.Header header = protocolMessage.getHeader();
+        if (header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_V2) {
+            return BufferUtils.toBuffer(encode(protocolMessage, HEAP_ALLOCATOR));
+        }
+        // 序列化（心跳帧、GOAWAY 帧没有消息体）
+        byte[] bodyBytes = hasBody(header) ? getSerializer(header).serialize(protocolMessage.getBody()) : new byte[0];
+        return encode(header, bodyBytes);
+    }
+
+    /**
+     * 编码到 allocator 分配的缓冲区（可为池化、直接内存）：
+     * 先写消息头并为 bodyLength 占位，序列化器直接写入缓冲区，写完后回填 bodyLength（v1 在偏移 13 处，
+     * v2 为 5 字节定长 varint），不产生中间字节数组。
+     * 返回的缓冲区由调用方释放（交给 Netty 写出后由 Netty 释放）
+     *
+     * @param protocolMessage
+     * @param allocator
+     * @return
+     * @throws IOException
+     */
+    public static ByteBuf encode(ProtocolMessage<?> protocolMessage, ByteBufAllocator allocator) throws IOException {
+        return encode(protocolMessage, allocator, 0, null);
+    }
+
+    /**
+     * 编码到 allocator 分配的缓冲区，消息头指定了压缩算法（仅 v2）且消息体不小于阈值时压缩消息体；
+     * 不压缩或压缩后不更小时按原样发送，消息头中的压缩算法随之清除
+     *
+     * @param protocolMessage
+     * @param allocator
+     * @param compressThreshold 压缩阈值（消息体字节数）
+     * @param method            服务名#方法名，用于按方法记录压缩指标，为 null 时不记录
+     * @return
+     * @throws IOException
+     */
+    public static ByteBuf encode(ProtocolMessage<?> protocolMessage, ByteBufAllocator allocator,
+                                 int compressThreshold, String method) throws IOException {
+        ProtocolMessage.Header header = protocolMessage.getHeader();
+        Serializer serializer = getSerializer(header);
+        ByteBuf byteBuf = allocator.buffer();
+        try {
+            // bodyLength 先占位，序列化完成后回填
+            int frameStart = byteBuf.writerIndex();
+            int bodyLengthIndex = writeHeader(byteBuf, header, -1);
+            int bodyStart = byteBuf.writerIndex();
+            if (hasBody(header)) {
+                serializer.serialize(protocolMessage.getBody(), new ByteBufOutputStream(byteBuf));
+            }
+            int bodyLength = byteBuf.writerIndex() - bodyStart;
+            if (shouldCompress(header, bodyLength, compressThreshold)) {
+                byte[] body = ByteBufUtil.getBytes(byteBuf, bodyStart, bodyLength);
+                byte[] compressed = compress(header, body, method);
+                if (compressed != null) {
+                    byteBuf.writerIndex(bodyStart);
+                    Varints.writeVarint(byteBuf, bodyLength);
+                    byteBuf.writeBytes(compressed);
+                    bodyLength = byteBuf.writerIndex() - bodyStart;
+                }
+            }
+            // 压缩算法在写消息头之后才最终确定
+            byteBuf.setByte(frameStart + 2, serializerByte(header));
+            if (header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_V2) {
+                Varints.setFixedVarint32(byteBuf, bodyLengthIndex, bodyLength);
+            } else {
+                byteBuf.setInt(bodyLengthIndex, bodyLength);
+            }
+            return byteBuf;
+        } catch (IOException | RuntimeException e) {
+            byteBuf.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 使用已序列化的消息体编码到 allocator 分配的缓冲区，返回的缓冲区由调用方释放
+     *
+     * @param header
+     * @param bodyBytes 已序列化的消息体
+     * @param allocator
+     * @return
+     */
+    public static ByteBuf encode(ProtocolMessage.Header header, byte[] bodyBytes, ByteBufAllocator allocator) {
+        return encode(header, bodyBytes, allocator, 0, null);
+    }
+
+    /**
+     * 使用已序列化的消息体编码到 allocator 分配的缓冲区，按需压缩消息体（规则同
+     * {@link #encode(ProtocolMessage, ByteBufAllocator, int, String)}），返回的缓冲区由调用方释放
+     *
+     * @param header
+     * @param bodyBytes         已序列化的消息体
+     * @param allocator
+     * @param compressThreshold 压缩阈值（消息体字节数）
+     * @param method            服务名#方法名，为 null 时不记录压缩指标
+     * @return
+     */
+    public static ByteBuf encode(ProtocolMessage.Header header, byte[] bodyBytes, ByteBufAllocator allocator,
+                                 int compressThreshold, String method) {
+        byte[] compressed = null;
+        if (shouldCompress(header, bodyBytes.length, compressThreshold)) {
+            try {
+                compressed = compress(header, bodyBytes, method);
+            } catch (IOException e) {
+                throw new RuntimeException("消息体压缩错误", e);
+            }
+        }
+        if (compressed == null) {
+            ByteBuf byteBuf = allocator.buffer(ProtocolConstant.MESSAGE_HEADER_LENGTH + bodyBytes.length);
+            writeHeader(byteBuf, header, bodyBytes.length);
+            return byteBuf.writeBytes(bodyBytes);
+        }
+        int bodyLength = Varints.varintLength(bodyBytes.length) + compressed.length;
+        ByteBuf byteBuf = allocator.buffer(ProtocolConstant.MESSAGE_HEADER_LENGTH + bodyLength);
+        writeHeader(byteBuf, header, bodyLength);
+        Varints.writeVarint(byteBuf, bodyBytes.length);
+        return byteBuf.writeBytes(compressed);
+    }
+
+    /**
+     * 使用已序列化的消息体编码（如服务端响应缓存命中时），不再序列化
+     *
+     * @param header
+     * @param bodyBytes 已序列化的消息体
+     * @return
+     */
+    public static Buffer encode(ProtocolMessage.Header header, byte[] bodyBytes) {
+        if (header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_V2) {
+            return BufferUtils.toBuffer(encode(header, bodyBytes, HEAP_ALLOCATOR));
+        }
         // 依次向缓冲区写入字节
-        Buffer buffer = Buffer.buffer();
+        Buffer buffer = Buffer.buffer(ProtocolConstant.MESSAGE_HEADER_LENGTH + bodyBytes.length);
         buffer.appendByte(header.getMagic());
         buffer.appendByte(header.getVersion());
         buffer.appendByte(header.getSerializer());
         buffer.appendByte(header.getType());
         buffer.appendByte(header.getStatus());
         buffer.appendLong(header.getRequestId());
-        // 获取序列化器
-        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
-        if (serializerEnum == null) {
-            throw new RuntimeException("未找到对应的序列化器");
-        }
-        Serializer serializer = SerializerFactory.getInstance(serializerEnum.getValue());
-        // 序列化
-        byte[] bodyBytes = serializer.serialize(protocolMessage.getBody());
         // 写入 body 长度和数据
         buffer.appendInt(bodyBytes.length);
         buffer.appendBytes(bodyBytes);
         return buffer;
     }
+
+    /**
+     * 写入消息头（v2 包括附件）
+     *
+     * @param bodyLength 消息体长度，小于 0 表示先占位，写完消息体后回填
+     * @return bodyLength 字段的位置
+     */
+    private static int writeHeader(ByteBuf byteBuf, ProtocolMessage.Header header, int bodyLength) {
+        byteBuf.writeByte(header.getMagic());
+        byteBuf.writeByte(header.getVersion());
+        byteBuf.writeByte(serializerByte(header));
+        byteBuf.writeByte(header.getType());
+        byteBuf.writeByte(header.getStatus());
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            byteBuf.writeLong(header.getRequestId());
+            int bodyLengthIndex = byteBuf.writerIndex();
+            byteBuf.writeInt(Math.max(bodyLength, 0));
+            return bodyLengthIndex;
+        }
+        Map<String, String> attachments = header.getAttachments();
+        Varints.writeVarint(byteBuf, header.getRequestId());
+        Varints.writeVarint(byteBuf, attachmentsLength(attachments));
+        int bodyLengthIndex = byteBuf.writerIndex();
+        if (bodyLength < 0) {
+            byteBuf.writeZero(Varints.FIXED_VARINT32_LENGTH);
+        } else {
+            Varints.writeVarint(byteBuf, bodyLength);
+        }
+        if (attachments != null) {
+            for (Map.Entry<String, String> entry : attachments.entrySet()) {
+                if (entry.getValue() != null) {
+                    writeString(byteBuf, entry.getKey());
+                    writeString(byteBuf, entry.getValue());
+                }
+            }
+        }
+        return bodyLengthIndex;
+    }
+
+    /**
+     * 消息头的 serializer 字节：v2 的高 4 位为压缩算法，v1 不支持压缩
+     */
+    private static int serializerByte(ProtocolMessage.Header header) {
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            return header.getSerializer();
+        }
+        return header.getCompressor() << 4 | header.getSerializer() & 0x0F;
+    }
+
+    /**
+     * 是否尝试压缩消息体；不压缩时清除消息头中的压缩算法
+     */
+    private static boolean shouldCompress(ProtocolMessage.Header header, int bodyLength, int compressThreshold) {
+        if (header.getCompressor() == ProtocolMessageCompressorEnum.NONE.getKey()) {
+            return false;
+        }
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2 || bodyLength == 0
+                || bodyLength < compressThreshold) {
+            header.setCompressor((byte) ProtocolMessageCompressorEnum.NONE.getKey());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 按消息头中的压缩算法压缩消息体
+     *
+     * @return 压缩数据，压缩后（加上原始长度）不比原消息体小时返回 null，并清除消息头中的压缩算法
+     */
+    private static byte[] compress(ProtocolMessage.Header header, byte[] body, String method) throws IOException {
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByKey(header.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("未找到对应的压缩器");
+        }
+        Compressor compressor = CompressorFactory.getInstance(compressorEnum.getValue());
+        long startNanos = System.nanoTime();
+        byte[] compressed = compressor.compress(body);
+        long costNanos = System.nanoTime() - startNanos;
+        int compressedLength = Varints.varintLength(body.length) + compressed.length;
+        if (compressedLength >= body.length) {
+            header.setCompressor((byte) ProtocolMessageCompressorEnum.NONE.getKey());
+            if (method != null) {
+                CompressMetrics.recordIncompressible(method, costNanos);
+            }
+            return null;
+        }
+        if (method != null) {
+            CompressMetrics.recordCompress(method, body.length, compressedLength, costNanos);
+        }
+        return compressed;
+    }
+
+    /**
+     * 附件区的字节数（值为 null 的附件不编码）
+     */
+    private static int attachmentsLength(Map<String, String> attachments) {
+        if (attachments == null) {
+            return 0;
+        }
+        int length = 0;
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            if (entry.getValue() != null) {
+                length += stringLength(entry.getKey()) + stringLength(entry.getValue());
+            }
+        }
+        return length;
+    }
+
+    private static int stringLength(String value) {
+        int utf8Length = ByteBufUtil.utf8Bytes(value);
+        return Varints.varintLength(utf8Length) + utf8Length;
+    }
+
+    private static void writeString(ByteBuf byteBuf, String value) {
+        Varints.writeVarint(byteBuf, ByteBufUtil.utf8Bytes(value));
+        byteBuf.writeCharSequence(value, StandardCharsets.UTF_8);
+    }
+
+    private static Serializer getSerializer(ProtocolMessage.Header header) {
+        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
+        if (serializerEnum == null) {
+            throw new RuntimeException("未找到对应的序列化器");
+        }
+        return SerializerFactory.getInstance(serializerEnum.getValue());
+    }
+
+    /**
+     * 心跳帧、GOAWAY 帧没有消息体
+     */
+    private static boolean hasBody(ProtocolMessage.Header header) {
+        return header.getType() != ProtocolMessageTypeEnum.HEART_BEAT.getKey()
+                && header.getType() != ProtocolMessageTypeEnum.GO_AWAY.getKey();
+    }
 }
@@ -10,7 +10,19 @@ public enum ProtocolMessageStatusEnum {
 
     OK("ok", 20),
     BAD_REQUEST("badRequest", 40),
-    BAD_RESPONSE("badResponse", 50);
+    BAD_RESPONSE("badResponse", 50),
+    /**
+     * 服务端过载，请求未执行即被拒绝，调用方可转移到其他节点
+     */
+    OVERLOADED("overloaded", 53),
+    /**
+     * 请求在服务端排队期间已超过调用方截止时间，未执行即被丢弃
+     */
+    DEADLINE_EXCEEDED("deadlineExceeded", 54),
+    /**
+     * 服务（或方法）的舱壁已满，请求未执行即被拒绝
+     */
+    BULKHEAD_FULL("bulkheadFull", 55);
 
     private final String text;
 
@@ -11,7 +11,15 @@ public enum ProtocolMessageTypeEnum {
     REQUEST(0),
     RESPONSE(1),
     HEART_BEAT(2),
-    OTHERS(3);
+    OTHERS(3),
+    /**
+     * 服务端即将下线，通知客户端不再在该连接上发送新请求（无消息体）
+     */
+    GO_AWAY(4),
+    /**
+     * 连接握手（v2）：客户端请求、服务端返回方法 id 表，消息体均为 MethodTable
+     */
+    HANDSHAKE(5);
 
     private final int key;
 
@@ -0,0 +1,96 @@
+package com.yupi.yurpc.protocol;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * varint（无符号 LEB128）编解码：每字节低 7 位为数据，最高位表示后面是否还有字节。
+ * 小数值只占 1 ~ 2 字节，用于 v2 消息头中的 requestId、长度等字段。
+ */
+class Varints {
+
+    /**
+     * long 型 varint 的最大字节数
+     */
+    static final int MAX_VARINT_LENGTH = 10;
+
+    /**
+     * 定长 varint 的字节数，可表示任意非负 int
+     */
+    static final int FIXED_VARINT32_LENGTH = 5;
+
+    private Varints() {
+    }
+
+    static void writeVarint(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    /**
+     * 在指定位置写入 5 字节定长 varint（前 4 字节带续位标记），用于先占位、后回填的长度字段。
+     * LEB128 允许这种冗余编码，读取方式与普通 varint 相同
+     */
+    static void setFixedVarint32(ByteBuf buf, int index, int value) {
+        for (int i = 0; i < FIXED_VARINT32_LENGTH - 1; i++) {
+            buf.setByte(index + i, (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.setByte(index + FIXED_VARINT32_LENGTH - 1, value);
+    }
+
+    static int varintLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * 读取 varint 并推进 readerIndex
+     */
+    static long readVarint(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; shift < MAX_VARINT_LENGTH * 7; shift += 7) {
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new RuntimeException("Invalid varint");
+    }
+
+    /**
+     * 读取表示长度的 varint
+     */
+    static int readLength(ByteBuf buf) {
+        long length = readVarint(buf);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new RuntimeException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * 指定位置起的 varint 字节数，不推进 readerIndex
+     *
+     * @param end 可读数据的结束位置（不含）
+     * @return 数据不足以读出完整 varint 时返回 -1
+     */
+    static int peekVarintLength(ByteBuf buf, int index, int end) {
+        for (int i = 0; i < MAX_VARINT_LENGTH && index + i < end; i++) {
+            if (buf.getByte(index + i) >= 0) {
+                return i + 1;
+            }
+        }
+        if (end - index >= MAX_VARINT_LENGTH) {
+            throw new RuntimeException("Invalid varint");
+        }
+        return -1;
+    }
+}
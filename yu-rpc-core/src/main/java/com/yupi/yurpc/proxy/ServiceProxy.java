@@ -7,10 +7,12 @@ import cn.hutool.http.HttpResponse;
 import com.yupi.yurpc.RpcApplication;
 import com.yupi.yurpc.config.RpcConfig;
 import com.yupi.yurpc.constant.RpcConstant;
+import com.yupi.yurpc.context.RpcContext;
 import com.yupi.yurpc.fault.retry.RetryStrategy;
 import com.yupi.yurpc.fault.retry.RetryStrategyFactory;
 import com.yupi.yurpc.fault.tolerant.TolerantStrategy;
 import com.yupi.yurpc.fault.tolerant.TolerantStrategyFactory;
+import com.yupi.yurpc.fault.tolerant.TolerantStrategyKeys;
 import com.yupi.yurpc.loadbalancer.LoadBalancer;
 import com.yupi.yurpc.loadbalancer.LoadBalancerFactory;
 import com.yupi.yurpc.model.RpcRequest;
@@ -23,6 +25,7 @@ import com.yupi.yurpc.serializer.JdkSerializer;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
 import com.yupi.yurpc.server.tcp.VertxTcpClient;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
@@ -34,7 +37,12 @@ import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 服务代理（JDK 动态代理）
@@ -42,6 +50,32 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class ServiceProxy implements InvocationHandler {
 
+    /**
+     * 异步调用失败后执行容错策略的线程池。
+     * 容错策略（如故障转移）会发起阻塞调用，使用独立的有界线程池，不占用公共 ForkJoinPool；队列满时直接以原异常失败
+     */
+    private static final ThreadPoolExecutor TOLERANT_EXECUTOR;
+
+    static {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        TOLERANT_EXECUTOR = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), new DefaultThreadFactory("rpc-tolerant", true));
+        TOLERANT_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 本代理发出请求的默认优先级，可被 RpcContext 中的优先级覆盖
+     */
+    private final int priority;
+
+    public ServiceProxy() {
+        this(RpcConstant.DEFAULT_PRIORITY);
+    }
+
+    public ServiceProxy(int priority) {
+        this.priority = priority;
+    }
+
     /**
      * 调用代理
      *
@@ -72,30 +106,30 @@ public class ServiceProxy implements InvocationHandler {
 
         // 1.构造请求
         String serviceName = method.getDeclaringClass().getName();
+        Integer contextPriority = RpcContext.getContext().getPriority();
         RpcRequest rpcRequest = RpcRequest.builder()
                 .serviceName(serviceName)
                 .methodName(methodName)
                 .parameterTypes(method.getParameterTypes())
                 .args(args)
+                .priority(contextPriority != null ? contextPriority : priority)
                 .build();
 
-        // 2.从注册中心获取服务提供者请求地址
+        // 2.从注册中心获取服务提供者请求地址，并负载均衡
         RpcConfig rpcConfig = RpcApplication.getRpcConfig();
-        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
-        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
-        serviceMetaInfo.setServiceName(serviceName);
-        serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
-        List<ServiceMetaInfo> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
-        if (CollUtil.isEmpty(serviceMetaInfoList)) {
-            throw new RuntimeException("暂无服务地址");
+        List<ServiceMetaInfo> serviceMetaInfoList = discoverServiceMetaInfos(rpcConfig, serviceName);
+        ServiceMetaInfo selectedServiceMetaInfo = selectServiceMetaInfo(rpcConfig, serviceMetaInfoList, methodName);
+        // 容错上下文：故障转移等策略需要知道请求、节点列表与失败节点
+        Map<String, Object> tolerantContext = new HashMap<>();
+        tolerantContext.put(TolerantStrategyKeys.CONTEXT_RPC_REQUEST, rpcRequest);
+        tolerantContext.put(TolerantStrategyKeys.CONTEXT_SERVICE_META_INFO_LIST, serviceMetaInfoList);
+        tolerantContext.put(TolerantStrategyKeys.CONTEXT_SELECTED_SERVICE_META_INFO, selectedServiceMetaInfo);
+
+        // 声明返回 CompletableFuture 的方法走异步调用，不阻塞任何线程
+        if (CompletableFuture.class.isAssignableFrom(method.getReturnType())) {
+            return doInvokeAsync(rpcConfig, rpcRequest, selectedServiceMetaInfo, tolerantContext);
         }
-        // 负载均衡
-        LoadBalancer loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancer());
-        // 将调用方法名（请求路径）作为负载均衡参数
-        Map<String, Object> requestParams = new HashMap<>();
-        requestParams.put("methodName", method.getName());
-        ServiceMetaInfo selectedServiceMetaInfo = loadBalancer.select(requestParams, serviceMetaInfoList);
-//        log.info("负载均衡得到服务提供者：{}", selectedServiceMetaInfo.getServiceAddress());
+
         // 3.发送 TCP 请求，使用重试机制、容错策略
         RpcResponse rpcResponse;
         try {
@@ -107,9 +141,88 @@ public class ServiceProxy implements InvocationHandler {
             // 容错机制
             log.error("RPC 调用失败，使用容错策略{}处理", rpcConfig.getTolerantStrategy(), e);
             TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
-            rpcResponse = tolerantStrategy.doTolerant(null, e);
+            rpcResponse = tolerantStrategy.doTolerant(tolerantContext, e);
         }
         return rpcResponse.getData();
 
     }
+
+    /**
+     * 从注册中心获取服务提供者列表
+     *
+     * @param rpcConfig
+     * @param serviceName
+     * @return
+     */
+    private List<ServiceMetaInfo> discoverServiceMetaInfos(RpcConfig rpcConfig, String serviceName) {
+        Registry registry = RegistryFactory.getInstance(rpcConfig.getRegistryConfig().getRegistry());
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(serviceName);
+        serviceMetaInfo.setServiceVersion(RpcConstant.DEFAULT_SERVICE_VERSION);
+        List<ServiceMetaInfo> serviceMetaInfoList = registry.serviceDiscovery(serviceMetaInfo.getServiceKey());
+        if (CollUtil.isEmpty(serviceMetaInfoList)) {
+            throw new RuntimeException("暂无服务地址");
+        }
+        return serviceMetaInfoList;
+    }
+
+    /**
+     * 通过负载均衡从服务提供者列表中选出一个节点（跳过正在排空的节点，全部排空时不跳过）
+     *
+     * @param rpcConfig
+     * @param serviceMetaInfoList
+     * @param methodName
+     * @return
+     */
+    private ServiceMetaInfo selectServiceMetaInfo(RpcConfig rpcConfig, List<ServiceMetaInfo> serviceMetaInfoList, String methodName) {
+        // 负载均衡
+        LoadBalancer loadBalancer = LoadBalancerFactory.getInstance(rpcConfig.getLoadBalancer());
+        // 将调用方法名（请求路径）作为负载均衡参数
+        Map<String, Object> requestParams = new HashMap<>();
+        requestParams.put("methodName", methodName);
+        List<ServiceMetaInfo> availableList = serviceMetaInfoList.stream()
+                .filter(serviceMetaInfo -> !VertxTcpClient.isDraining(serviceMetaInfo))
+                .collect(Collectors.toList());
+        return loadBalancer.select(requestParams, availableList.isEmpty() ? serviceMetaInfoList : availableList);
+    }
+
+    /**
+     * 异步调用：响应到达后在 I/O 线程上直接完成返回的 Future。
+     * 重试策略基于阻塞式 Callable，异步调用不做重试，仅在失败时应用容错策略；
+     * 容错策略（如故障转移）可能发起阻塞调用，因此转到容错线程池执行，不占用 I/O 线程。
+     *
+     * @param rpcConfig
+     * @param rpcRequest
+     * @param serviceMetaInfo
+     * @param tolerantContext 容错上下文
+     * @return
+     */
+    private CompletableFuture<Object> doInvokeAsync(RpcConfig rpcConfig, RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo,
+                                                    Map<String, Object> tolerantContext) {
+        CompletableFuture<Object> resultFuture = new CompletableFuture<>();
+        VertxTcpClient.doRequestAsync(rpcRequest, serviceMetaInfo).whenComplete((rpcResponse, throwable) -> {
+            if (throwable == null) {
+                resultFuture.complete(rpcResponse.getData());
+                return;
+            }
+            // 容错机制
+            Exception e = throwable instanceof Exception ? (Exception) throwable : new RuntimeException(throwable);
+            log.error("RPC 异步调用失败，使用容错策略{}处理", rpcConfig.getTolerantStrategy(), e);
+            try {
+                TOLERANT_EXECUTOR.execute(() -> {
+                    try {
+                        TolerantStrategy tolerantStrategy = TolerantStrategyFactory.getInstance(rpcConfig.getTolerantStrategy());
+                        RpcResponse tolerantResponse = tolerantStrategy.doTolerant(tolerantContext, e);
+                        resultFuture.complete(tolerantResponse == null ? null : tolerantResponse.getData());
+                    } catch (Exception tolerantException) {
+                        resultFuture.completeExceptionally(tolerantException);
+                    }
+                });
+            } catch (RejectedExecutionException rejected) {
+                log.warn("容错线程池已满，放弃容错处理");
+                resultFuture.completeExceptionally(e);
+            }
+        });
+        return resultFuture;
+    }
 }
@@ -1,6 +1,7 @@
 package com.yupi.yurpc.proxy;
 
 import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.constant.RpcConstant;
 import com.yupi.yurpc.proxy.ServiceProxy;
 
 import java.lang.reflect.Proxy;
@@ -18,6 +19,18 @@ public class ServiceProxyFactory {
      * @return
      */
     public static <T> T getProxy(Class<T> serviceClass) {
+        return getProxy(serviceClass, RpcConstant.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * 根据服务类获取代理对象，指定该代理发出请求的优先级
+     *
+     * @param serviceClass
+     * @param priority     请求优先级，数值越大越优先
+     * @param <T>
+     * @return
+     */
+    public static <T> T getProxy(Class<T> serviceClass, int priority) {
         // 若配置开启mock，则这里创建mock对象返回
         if (RpcApplication.getRpcConfig().isMock()) {
             return getMockProxy(serviceClass);
@@ -27,7 +40,7 @@ public class ServiceProxyFactory {
         return (T) Proxy.newProxyInstance(
                 serviceClass.getClassLoader(),
                 new Class[]{serviceClass},
-                new ServiceProxy());
+                new ServiceProxy(priority));
     }
 
     /**
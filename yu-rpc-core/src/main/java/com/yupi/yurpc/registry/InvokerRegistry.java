@@ -0,0 +1,147 @@
+package com.yupi.yurpc.registry;
+
+import com.yupi.yurpc.model.MethodTable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务方法调用器注册表：serviceName -> methodName -> 重载列表
+ * 注册服务时解析实现类的全部 public 方法并生成 {@link MethodInvoker}，
+ * 请求分发时只需按服务名、方法名查表，再按参数类型匹配重载（通常只有一个），不再逐次反射查找方法。
+ * 每个调用器另有一个整数 id，握手后客户端只发送 id，服务端按下标直接取出调用器。
+ */
+@Slf4j
+public class InvokerRegistry {
+
+    private static final Map<String, Map<String, MethodInvoker[]>> INVOKER_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 方法 id -> 调用器（下标即 id）。id 只增不复用，服务删除后对应位置置为 null，已下发的 id 不会指向其他方法
+     */
+    private static volatile MethodInvoker[] invokersById = new MethodInvoker[0];
+
+    private InvokerRegistry() {
+    }
+
+    /**
+     * 注册服务实现类的所有 public 方法（Object 上声明的方法除外）
+     *
+     * @param serviceName
+     * @param provider    服务提供者
+     */
+    public static synchronized void register(String serviceName, ServiceProvider provider) {
+        Map<String, MethodInvoker[]> methodMap = new HashMap<>();
+        List<MethodInvoker> created = new ArrayList<>();
+        for (Method method : provider.getImplClass().getMethods()) {
+            if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            MethodInvoker invoker;
+            try {
+                invoker = new MethodInvoker(invokersById.length + created.size(), serviceName, provider, method);
+            } catch (Exception e) {
+                log.warn("服务方法调用器创建失败：{}#{}", serviceName, method.getName(), e);
+                continue;
+            }
+            methodMap.merge(method.getName(), new MethodInvoker[]{invoker}, (oldValue, newValue) -> {
+                MethodInvoker[] merged = Arrays.copyOf(oldValue, oldValue.length + 1);
+                merged[oldValue.length] = newValue[0];
+                return merged;
+            });
+            created.add(invoker);
+        }
+        MethodInvoker[] byId = Arrays.copyOf(invokersById, invokersById.length + created.size());
+        for (MethodInvoker invoker : created) {
+            byId[invoker.getId()] = invoker;
+        }
+        clearIds(byId, INVOKER_MAP.put(serviceName, methodMap));
+        invokersById = byId;
+    }
+
+    /**
+     * 按方法 id 获取服务方法调用器
+     *
+     * @param id
+     * @return 未注册或已删除时返回 null
+     */
+    public static MethodInvoker get(int id) {
+        MethodInvoker[] byId = invokersById;
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * 当前全部服务方法的 id 表（握手时下发）
+     *
+     * @return
+     */
+    public static MethodTable methodTable() {
+        Map<String, Integer> methodIds = new HashMap<>();
+        for (MethodInvoker invoker : invokersById) {
+            if (invoker != null) {
+                methodIds.put(MethodTable.signature(invoker.getServiceName(), invoker.getMethod().getName(),
+                        invoker.getParameterTypes()), invoker.getId());
+            }
+        }
+        return new MethodTable(methodIds);
+    }
+
+    /**
+     * 获取服务方法调用器
+     *
+     * @param serviceName
+     * @param methodName
+     * @param parameterTypes
+     * @return 未注册时返回 null
+     */
+    public static MethodInvoker get(String serviceName, String methodName, Class<?>[] parameterTypes) {
+        Map<String, MethodInvoker[]> methodMap = INVOKER_MAP.get(serviceName);
+        if (methodMap == null) {
+            return null;
+        }
+        MethodInvoker[] invokers = methodMap.get(methodName);
+        if (invokers == null) {
+            return null;
+        }
+        for (MethodInvoker invoker : invokers) {
+            Class<?>[] types = invoker.getParameterTypes();
+            if (types.length == 0 ? parameterTypes == null || parameterTypes.length == 0
+                    : Arrays.equals(types, parameterTypes)) {
+                return invoker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除服务
+     *
+     * @param serviceName
+     */
+    public static synchronized void remove(String serviceName) {
+        MethodInvoker[] byId = invokersById.clone();
+        clearIds(byId, INVOKER_MAP.remove(serviceName));
+        invokersById = byId;
+    }
+
+    /**
+     * 清除已删除（或被重新注册替换）的服务方法的 id
+     */
+    private static void clearIds(MethodInvoker[] byId, Map<String, MethodInvoker[]> methodMap) {
+        if (methodMap == null) {
+            return;
+        }
+        for (MethodInvoker[] invokers : methodMap.values()) {
+            for (MethodInvoker invoker : invokers) {
+                byId[invoker.getId()] = null;
+            }
+        }
+    }
+}
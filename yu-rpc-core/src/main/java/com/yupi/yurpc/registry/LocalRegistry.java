@@ -1,35 +1,78 @@
 package com.yupi.yurpc.registry;
 
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiters;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 本地注册中心
+ * 存储服务名到服务提供者（实现类 + 实例作用域）的映射，默认单例，避免每次请求都创建实例。
  */
 public class LocalRegistry {
 
     /**
      * 注册信息存储
      */
-    private static final Map<String, Class<?>> map = new ConcurrentHashMap<>();
+    private static final Map<String, ServiceProvider> map = new ConcurrentHashMap<>();
 
     /**
-     * 注册服务
+     * 注册服务（单例作用域）
      *
      * @param serviceName
      * @param implClass
      */
     public static void register(String serviceName, Class<?> implClass) {
-        map.put(serviceName, implClass);
+        register(serviceName, implClass, ServiceScopeEnum.SINGLETON);
+    }
+
+    /**
+     * 注册服务（指定作用域）
+     *
+     * @param serviceName
+     * @param implClass
+     * @param scope       实例作用域
+     */
+    public static void register(String serviceName, Class<?> implClass, ServiceScopeEnum scope) {
+        register(serviceName, new ServiceProvider(implClass, scope));
     }
 
     /**
-     * 获取服务
+     * 注册服务实例（单例，例如 Spring Bean）
+     *
+     * @param serviceName
+     * @param instance
+     */
+    public static void register(String serviceName, Object instance) {
+        register(serviceName, new ServiceProvider(instance));
+    }
+
+    private static void register(String serviceName, ServiceProvider provider) {
+        // 校验 @ConcurrencyLimit 的算法名称，写错名称的服务注册即失败
+        ConcurrencyLimiters.checkAnnotations(provider.getImplClass());
+        map.put(serviceName, provider);
+        // 预先解析服务方法调用器，请求分发时不再反射查找方法
+        InvokerRegistry.register(serviceName, provider);
+    }
+
+    /**
+     * 获取服务实现类
      *
      * @param serviceName
      * @return
      */
     public static Class<?> get(String serviceName) {
+        ServiceProvider provider = map.get(serviceName);
+        return provider == null ? null : provider.getImplClass();
+    }
+
+    /**
+     * 获取服务提供者
+     *
+     * @param serviceName
+     * @return
+     */
+    public static ServiceProvider getProvider(String serviceName) {
         return map.get(serviceName);
     }
 
@@ -40,5 +83,6 @@ public class LocalRegistry {
      */
     public static void remove(String serviceName) {
         map.remove(serviceName);
+        InvokerRegistry.remove(serviceName);
     }
 }
@@ -0,0 +1,107 @@
+package com.yupi.yurpc.registry;
+
+import com.yupi.yurpc.annotation.Idempotent;
+import com.yupi.yurpc.annotation.ResponseCache;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 服务方法调用器（注册服务时预先解析）。
+ * 把服务方法适配为统一签名 (Object target, Object[] args) -> Object 的 MethodHandle，
+ * 调用时直接 invokeExact，省去 Method.invoke 的访问检查、参数校验与装箱数组拷贝。
+ */
+@Getter
+public class MethodInvoker {
+
+    /**
+     * 统一调用签名
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * 方法 id（进程内唯一），握手时下发给客户端，请求据此直接定位调用器
+     */
+    private final int id;
+
+    /**
+     * 服务名称
+     */
+    private final String serviceName;
+
+    /**
+     * 服务名#方法名，用于按方法记录指标
+     */
+    private final String qualifiedName;
+
+    /**
+     * 服务提供者（实现类及实例获取方式）
+     */
+    private final ServiceProvider provider;
+
+    /**
+     * 服务方法（用于获取返回类型、注解等元信息）
+     */
+    private final Method method;
+
+    /**
+     * 参数类型（缓存，Method.getParameterTypes 每次都会拷贝数组）
+     */
+    private final Class<?>[] parameterTypes;
+
+    private final MethodHandle methodHandle;
+
+    /**
+     * 是否幂等可合并（方法标注了 {@link Idempotent}）
+     */
+    private final boolean idempotent;
+
+    /**
+     * 是否缓存响应（方法标注了 {@link ResponseCache}）
+     */
+    private final boolean cacheable;
+
+    MethodInvoker(int id, String serviceName, ServiceProvider provider, Method method) throws IllegalAccessException {
+        this.id = id;
+        this.serviceName = serviceName;
+        this.qualifiedName = serviceName + "#" + method.getName();
+        this.provider = provider;
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.idempotent = method.isAnnotationPresent(Idempotent.class);
+        this.cacheable = method.isAnnotationPresent(ResponseCache.class);
+        // 非 public 类（如内部类）上的 public 方法也需要可访问
+        method.setAccessible(true);
+        this.methodHandle = MethodHandles.lookup().unreflect(method)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(INVOKER_TYPE);
+    }
+
+    /**
+     * 服务实现类
+     */
+    public Class<?> getImplClass() {
+        return provider.getImplClass();
+    }
+
+    /**
+     * 调用服务方法。业务异常原样抛出，不再包装为 InvocationTargetException。
+     *
+     * @param target 服务实例
+     * @param args   参数列表（无参方法可为 null）
+     * @return 方法返回值
+     * @throws Exception
+     */
+    public Object invoke(Object target, Object[] args) throws Exception {
+        try {
+            return (Object) methodHandle.invokeExact(target, args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.yupi.yurpc.registry;
+
+import lombok.Getter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务提供者：服务实现类及其实例的获取方式（按作用域）。
+ * 调用方通过 {@link #acquire()} 获取实例，调用完成后必须 {@link #release(Object)} 归还。
+ */
+@Getter
+public class ServiceProvider {
+
+    /**
+     * 池化作用域下的最大空闲实例数
+     */
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Class<?> implClass;
+
+    private final ServiceScopeEnum scope;
+
+    /**
+     * 单例实例（懒加载，或注册时直接传入，例如 Spring Bean）
+     */
+    private volatile Object singleton;
+
+    /**
+     * 池化作用域的空闲实例
+     */
+    private final Queue<Object> idleInstances = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    ServiceProvider(Class<?> implClass, ServiceScopeEnum scope) {
+        this.implClass = implClass;
+        this.scope = scope;
+    }
+
+    ServiceProvider(Object instance) {
+        this.implClass = instance.getClass();
+        this.scope = ServiceScopeEnum.SINGLETON;
+        this.singleton = instance;
+    }
+
+    /**
+     * 获取服务实例
+     *
+     * @return
+     * @throws ReflectiveOperationException 创建实例失败
+     */
+    public Object acquire() throws ReflectiveOperationException {
+        switch (scope) {
+            case PROTOTYPE:
+                return newInstance();
+            case POOLED:
+                Object instance = idleInstances.poll();
+                if (instance == null) {
+                    return newInstance();
+                }
+                idleCount.decrementAndGet();
+                return instance;
+            case SINGLETON:
+            default:
+                // DCL 单例模式
+                if (singleton == null) {
+                    synchronized (this) {
+                        if (singleton == null) {
+                            singleton = newInstance();
+                        }
+                    }
+                }
+                return singleton;
+        }
+    }
+
+    /**
+     * 归还服务实例（仅池化作用域需要，空闲实例超过上限时直接丢弃）
+     *
+     * @param instance
+     */
+    public void release(Object instance) {
+        if (scope != ServiceScopeEnum.POOLED || instance == null) {
+            return;
+        }
+        if (idleCount.incrementAndGet() > DEFAULT_POOL_SIZE) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idleInstances.offer(instance);
+    }
+
+    private Object newInstance() throws ReflectiveOperationException {
+        return implClass.getDeclaredConstructor().newInstance();
+    }
+}
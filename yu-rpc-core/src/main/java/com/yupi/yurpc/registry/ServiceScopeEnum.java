@@ -0,0 +1,31 @@
+package com.yupi.yurpc.registry;
+
+import lombok.Getter;
+
+/**
+ * 服务实例作用域
+ */
+@Getter
+public enum ServiceScopeEnum {
+
+    /**
+     * 单例：所有请求共享同一个实例（默认），实现类需线程安全
+     */
+    SINGLETON("singleton"),
+
+    /**
+     * 原型：每次请求创建新实例（原有行为）
+     */
+    PROTOTYPE("prototype"),
+
+    /**
+     * 池化：从实例池借出，调用完成后归还，同一实例同一时刻只服务一个请求
+     */
+    POOLED("pooled");
+
+    private final String value;
+
+    ServiceScopeEnum(String value) {
+        this.value = value;
+    }
+}
@@ -8,6 +8,8 @@ import com.yupi.yurpc.model.RpcResponse;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Hessian 序列化器
@@ -23,11 +25,22 @@ public class HessianSerializer implements Serializer {
         return bos.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        HessianOutput ho = new HessianOutput(outputStream);
+        ho.writeObject(object);
+        ho.flush();
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> tClass) throws IOException {
-        ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+        return deserialize(new ByteArrayInputStream(bytes), tClass);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> tClass) throws IOException {
         // 【核心点 2】直接创建 HessianInput 包装流
-        HessianInput hi = new HessianInput(bis);
+        HessianInput hi = new HessianInput(inputStream);
         T obj = (T) hi.readObject(tClass);
 
         // ✅ 核心修复：单独处理 RpcResponse，解决 Integer -> Short/Byte 的转换问题
@@ -19,9 +19,20 @@ public class JdkSerializer implements Serializer{
         return outputStream.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.flush();
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException {
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        return deserialize(new ByteArrayInputStream(bytes), type);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
         ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
         try {
             return (T) objectInputStream.readObject();
@@ -5,6 +5,8 @@ import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Json 序列化器
@@ -18,9 +20,25 @@ public class JsonSerializer implements Serializer {
         return OBJECT_MAPPER.writeValueAsBytes(obj);
     }
 
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) throws IOException {
+        OBJECT_MAPPER.writeValue(outputStream, obj);
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) throws IOException {
-        T obj = OBJECT_MAPPER.readValue(bytes, classType);
+        return postProcess(OBJECT_MAPPER.readValue(bytes, classType), classType);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> classType) throws IOException {
+        return postProcess(OBJECT_MAPPER.readValue(inputStream, classType), classType);
+    }
+
+    /**
+     * 还原被擦除为 LinkedHashMap 的参数、返回值
+     */
+    private <T> T postProcess(T obj, Class<T> classType) throws IOException {
         if (obj instanceof RpcRequest) {
             return handleRequest((RpcRequest) obj, classType);
         }
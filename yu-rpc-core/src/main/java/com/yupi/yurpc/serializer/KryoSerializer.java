@@ -6,6 +6,8 @@ import com.esotericsoftware.kryo.io.Output;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Kryo 序列化器
@@ -24,6 +26,11 @@ public class KryoSerializer implements Serializer {
         return kryo;
     });
 
+    /**
+     * 流式序列化复用的 Output（内部缓冲区按线程复用，写满时刷到目标流）
+     */
+    private static final ThreadLocal<Output> OUTPUT_THREAD_LOCAL = ThreadLocal.withInitial(() -> new Output(4096));
+
     @Override
     public <T> byte[] serialize(T obj) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
@@ -34,10 +41,27 @@ public class KryoSerializer implements Serializer {
         return byteArrayOutputStream.toByteArray();
     }
 
+    @Override
+    public <T> void serialize(T obj, OutputStream outputStream) {
+        Output output = OUTPUT_THREAD_LOCAL.get();
+        output.setOutputStream(outputStream);
+        try {
+            KRYO_THREAD_LOCAL.get().writeObject(output, obj);
+            output.flush();
+        } finally {
+            // 不持有目标流的引用
+            output.setOutputStream(null);
+        }
+    }
+
     @Override
     public <T> T deserialize(byte[] bytes, Class<T> classType) {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        Input input = new Input(byteArrayInputStream);
+        return deserialize(new ByteArrayInputStream(bytes), classType);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream inputStream, Class<T> classType) {
+        Input input = new Input(inputStream);
         T result = KRYO_THREAD_LOCAL.get().readObject(input, classType);
         input.close();
         return result;
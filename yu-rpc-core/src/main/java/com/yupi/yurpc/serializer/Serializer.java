@@ -1,6 +1,8 @@
 package com.yupi.yurpc.serializer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * 序列化器接口
@@ -17,6 +19,19 @@ public interface Serializer {
      */
     <T> byte[] serialize(T object) throws IOException;
 
+    /**
+     * 序列化到输出流，编码时直接写入网络缓冲区，避免先生成中间字节数组。
+     * 默认实现先调用 {@link #serialize(Object)} 再整体写出，支持流式写入的序列化器应覆盖此方法
+     *
+     * @param object
+     * @param outputStream
+     * @param <T>
+     * @throws IOException
+     */
+    default <T> void serialize(T object, OutputStream outputStream) throws IOException {
+        outputStream.write(serialize(object));
+    }
+
     /**
      * 反序列化
      *
@@ -27,4 +42,18 @@ public interface Serializer {
      * @throws IOException
      */
     <T> T deserialize(byte[] bytes, Class<T> type) throws IOException;
+
+    /**
+     * 从输入流反序列化，解码时直接读取网络缓冲区，避免先把消息体复制成字节数组。
+     * 默认实现读出全部字节后调用 {@link #deserialize(byte[], Class)}，支持流式读取的序列化器应覆盖此方法
+     *
+     * @param inputStream
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    default <T> T deserialize(InputStream inputStream, Class<T> type) throws IOException {
+        return deserialize(inputStream.readAllBytes(), type);
+    }
 }
@@ -3,7 +3,9 @@ package com.yupi.yurpc.server;
 import com.yupi.yurpc.RpcApplication;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
-import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.InvokerRegistry;
+import com.yupi.yurpc.registry.MethodInvoker;
+import com.yupi.yurpc.registry.ServiceProvider;
 import com.yupi.yurpc.serializer.JdkSerializer;
 import com.yupi.yurpc.serializer.Serializer;
 import com.yupi.yurpc.serializer.SerializerFactory;
@@ -14,7 +16,6 @@ import io.vertx.core.http.HttpServerResponse;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 
 /**
  * HTTP 请求处理
@@ -46,13 +47,23 @@ public class HttpServerHandler implements Handler<HttpServerRequest> {
             }
 
             try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());    // 服务端启动时就要先做服务注册，然后这里获取
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
+                // 获取注册服务时预先解析好的方法调用器（服务端启动时就要先做服务注册，然后这里获取）
+                MethodInvoker invoker = InvokerRegistry.get(rpcRequest.getServiceName(),
+                        rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
+                if (invoker == null) {
+                    throw new NoSuchMethodException("未找到服务方法：" + rpcRequest.getServiceName() + "#" + rpcRequest.getMethodName());
+                }
+                ServiceProvider provider = invoker.getProvider();
+                Object instance = provider.acquire();
+                Object result;
+                try {
+                    result = invoker.invoke(instance, rpcRequest.getArgs());
+                } finally {
+                    provider.release(instance);
+                }
                 // 封装返回结果
                 rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
+                rpcResponse.setDataType(invoker.getMethod().getReturnType());
                 rpcResponse.setMessage("ok");
             } catch (Exception e) {
                 e.printStackTrace();
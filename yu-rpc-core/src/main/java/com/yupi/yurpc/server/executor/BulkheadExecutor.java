@@ -0,0 +1,60 @@
+package com.yupi.yurpc.server.executor;
+
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 舱壁执行器：一个服务（或方法）独占的固定大小线程池 + 有界优先级队列（排队的请求按优先级执行）。
+ * 线程与队列都满时抛出 {@link BulkheadFullException}；
+ * 活跃线程数、排队数、利用率（活跃线程数 / 最大并发数，百分比）与拒绝数以 rpc.server.bulkhead.{名称}.* 指标暴露。
+ */
+public class BulkheadExecutor implements Executor {
+
+    /**
+     * 空闲线程存活时间 (ms)，空闲的舱壁不长期占用线程
+     */
+    private static final long KEEP_ALIVE_MILLIS = 60000L;
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final int maxConcurrency;
+
+    private final ThreadPoolExecutor threadPool;
+
+    BulkheadExecutor(String name, int maxConcurrency, int queueCapacity) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        String metricPrefix = MetricNames.SERVER_BULKHEAD_PREFIX + name;
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new PriorityTaskQueue(queueCapacity)
+                : new SynchronousQueue<>();
+        this.threadPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS, queue,
+                new DefaultThreadFactory("rpc-bulkhead-" + name, true),
+                (task, executor) -> {
+                    RpcMetrics.increment(metricPrefix + ".rejected");
+                    throw new BulkheadFullException("舱壁已满：" + name + "，最大并发 " + maxConcurrency
+                            + "，排队上限 " + queueCapacity);
+                });
+        threadPool.allowCoreThreadTimeOut(true);
+        RpcMetrics.registerGauge(metricPrefix + ".active", threadPool::getActiveCount);
+        RpcMetrics.registerGauge(metricPrefix + ".queue.depth", () -> threadPool.getQueue().size());
+        RpcMetrics.registerGauge(metricPrefix + ".utilization",
+                () -> threadPool.getActiveCount() * 100 / maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        threadPool.execute(command);
+    }
+}
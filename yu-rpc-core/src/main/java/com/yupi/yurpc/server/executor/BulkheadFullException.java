@@ -0,0 +1,13 @@
+package com.yupi.yurpc.server.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 舱壁的线程与队列均已占满，任务被拒绝
+ */
+public class BulkheadFullException extends RejectedExecutionException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
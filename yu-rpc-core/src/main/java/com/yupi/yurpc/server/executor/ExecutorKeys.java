@@ -0,0 +1,27 @@
+package com.yupi.yurpc.server.executor;
+
+/**
+ * 服务端业务执行器类型常量
+ */
+public interface ExecutorKeys {
+
+    /**
+     * 有界线程池（排队的请求按优先级执行）
+     */
+    String THREAD_POOL = "threadPool";
+
+    /**
+     * 按请求优先级调度的有界队列线程池，过载时优先丢弃、延后低优先级请求
+     */
+    String PRIORITY = "priority";
+
+    /**
+     * 虚拟线程（每个任务一个虚拟线程，需 JDK 21+，否则回退到有界线程池）
+     */
+    String VIRTUAL = "virtual";
+
+    /**
+     * 在 event loop 上直接执行，仅适用于确定不会阻塞的快速方法
+     */
+    String INLINE = "inline";
+}
@@ -0,0 +1,61 @@
+package com.yupi.yurpc.server.executor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带优先级的任务：优先级高的先执行，同优先级按提交顺序执行。
+ * 被 {@link PriorityExecutor} 挤出队列时执行拒绝回调（例如以 OVERLOADED 状态响应调用方）。
+ */
+public class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+    /**
+     * 提交序号，保证同优先级 FIFO，且任意两个任务可比较出先后
+     */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final int priority;
+
+    private final long sequence = SEQUENCE.getAndIncrement();
+
+    private final Runnable task;
+
+    /**
+     * 任务被挤出队列时的回调，可为 null
+     */
+    private final Runnable rejectHandler;
+
+    public PrioritizedTask(int priority, Runnable task, Runnable rejectHandler) {
+        this.priority = priority;
+        this.task = task;
+        this.rejectHandler = rejectHandler;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    /**
+     * 任务未执行即被丢弃
+     */
+    void reject() {
+        if (rejectHandler != null) {
+            rejectHandler.run();
+        }
+    }
+
+    /**
+     * 排在前面的任务更小：优先级高者在前，同优先级先提交者在前
+     */
+    @Override
+    public int compareTo(PrioritizedTask other) {
+        if (priority != other.priority) {
+            return Integer.compare(other.priority, priority);
+        }
+        return Long.compare(sequence, other.sequence);
+    }
+}
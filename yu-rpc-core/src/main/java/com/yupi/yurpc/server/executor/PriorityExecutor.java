@@ -0,0 +1,113 @@
+package com.yupi.yurpc.server.executor;
+
+import com.yupi.yurpc.constant.RpcConstant;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按请求优先级调度的业务执行器：固定数量的工作线程 + 有界优先级队列。
+ * 1. 工作线程总是先取优先级最高的任务，低优先级任务在负载高时被延后；
+ * 2. 队列满时，新任务优先级高于队尾（优先级最低、最晚提交）的任务则挤出队尾任务，否则拒绝新任务，
+ * 因此过载时最先被丢弃的是批处理等低优先级请求。
+ */
+@Slf4j
+public class PriorityExecutor implements Executor {
+
+    private final int queueCapacity;
+
+    /**
+     * 待执行任务，first 为下一个执行的任务，last 为最先被丢弃的任务
+     */
+    private final TreeSet<PrioritizedTask> queue = new TreeSet<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final AtomicInteger activeThreads = new AtomicInteger();
+
+    PriorityExecutor(int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        ThreadFactory threadFactory = new DefaultThreadFactory("rpc-priority", true);
+        for (int i = 0; i < threads; i++) {
+            threadFactory.newThread(this::work).start();
+        }
+        RpcMetrics.registerGauge(MetricNames.SERVER_PRIORITY_EXECUTOR_QUEUE_DEPTH, this::getQueueSize);
+        RpcMetrics.registerGauge(MetricNames.SERVER_PRIORITY_EXECUTOR_ACTIVE_THREADS, activeThreads::get);
+    }
+
+    /**
+     * 提交任务，非 {@link PrioritizedTask} 按默认优先级处理
+     *
+     * @param command
+     * @throws RejectedExecutionException 队列已满且新任务优先级不高于队尾任务
+     */
+    @Override
+    public void execute(Runnable command) {
+        PrioritizedTask task = command instanceof PrioritizedTask
+                ? (PrioritizedTask) command
+                : new PrioritizedTask(RpcConstant.DEFAULT_PRIORITY, command, null);
+        PrioritizedTask evicted = null;
+        lock.lock();
+        try {
+            if (queue.size() >= queueCapacity) {
+                PrioritizedTask lowest = queue.isEmpty() ? null : queue.last();
+                if (lowest == null || lowest.getPriority() >= task.getPriority()) {
+                    throw new RejectedExecutionException("业务队列已满，优先级 " + task.getPriority() + " 的请求被拒绝");
+                }
+                evicted = queue.pollLast();
+            }
+            queue.add(task);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (evicted != null) {
+            // 在锁外执行拒绝回调（编码并发送拒绝响应）
+            RpcMetrics.increment(MetricNames.SERVER_PRIORITY_SHED);
+            evicted.reject();
+        }
+    }
+
+    int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            PrioritizedTask task;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                task = queue.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+            activeThreads.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("业务任务执行异常", e);
+            } finally {
+                activeThreads.decrementAndGet();
+            }
+        }
+    }
+}
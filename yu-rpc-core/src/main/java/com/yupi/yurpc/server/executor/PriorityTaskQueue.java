@@ -0,0 +1,49 @@
+package com.yupi.yurpc.server.executor;
+
+import com.yupi.yurpc.constant.RpcConstant;
+
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * 有界的优先级任务队列，供有界线程池与舱壁使用：工作线程都忙时，排队的任务按优先级出队（同优先级按提交顺序）。
+ * 队列满时 offer 返回 false，交给线程池扩容或拒绝策略处理，不挤出已排队的任务（挤出低优先级任务见 {@link PriorityExecutor}）。
+ */
+class PriorityTaskQueue extends PriorityBlockingQueue<Runnable> {
+
+    private final int capacity;
+
+    PriorityTaskQueue(int capacity) {
+        super(Math.max(1, Math.min(capacity, 64)), PriorityTaskQueue::compare);
+        this.capacity = capacity;
+    }
+
+    /**
+     * 入队（串行化，保证队列长度不超过容量）
+     */
+    @Override
+    public synchronized boolean offer(Runnable task) {
+        if (size() >= capacity) {
+            return false;
+        }
+        return super.offer(task);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+
+    /**
+     * 非 {@link PrioritizedTask} 按默认优先级排序
+     */
+    private static int compare(Runnable a, Runnable b) {
+        if (a instanceof PrioritizedTask && b instanceof PrioritizedTask) {
+            return ((PrioritizedTask) a).compareTo((PrioritizedTask) b);
+        }
+        return Integer.compare(priorityOf(b), priorityOf(a));
+    }
+
+    private static int priorityOf(Runnable task) {
+        return task instanceof PrioritizedTask ? ((PrioritizedTask) task).getPriority() : RpcConstant.DEFAULT_PRIORITY;
+    }
+}
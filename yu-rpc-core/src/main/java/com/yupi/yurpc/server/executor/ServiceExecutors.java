@@ -0,0 +1,173 @@
+package com.yupi.yurpc.server.executor;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.annotation.Bulkhead;
+import com.yupi.yurpc.annotation.RpcExecutor;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端业务执行器。
+ * 服务调用（反射执行业务方法 + 编码响应）从 Vert.x event loop 转移到业务执行器，event loop 只负责 I/O：
+ * 1. threadPool：有界线程池，排队的请求按优先级执行，队列满时拒绝（RejectedExecutionException）；
+ * 2. priority：按请求优先级调度，队列满时挤出低优先级请求，过载时优先丢弃低优先级请求；
+ * 3. virtual：每个任务一个虚拟线程（JDK 21+），不排队，不区分优先级；不可用时回退到有界线程池；
+ * 4. inline：直接在 event loop 上执行，只用于确定不会阻塞的快速方法，不区分优先级。
+ * 舱壁与 threadPool 一样按优先级排队、满时拒绝。
+ * 执行器按 方法注解 > 类注解 > 全局配置 的优先级选择，结果按方法缓存；
+ * 其中 @Bulkhead（或开启全局舱壁配置）为服务或方法分配独占的舱壁执行器，与其他服务的执行资源隔离。
+ */
+@Slf4j
+public class ServiceExecutors {
+
+    /**
+     * 在调用线程上直接执行
+     */
+    private static final Executor INLINE_EXECUTOR = Runnable::run;
+
+    /**
+     * 执行器类型 -> 共享执行器（懒加载）
+     */
+    private static final Map<String, Executor> EXECUTOR_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * 服务方法 -> 执行器，避免每次请求都解析注解
+     */
+    private static final Map<Method, Executor> METHOD_EXECUTOR_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 服务实现类 -> 服务级舱壁
+     */
+    private static final Map<Class<?>, BulkheadExecutor> SERVICE_BULKHEAD_MAP = new ConcurrentHashMap<>();
+
+    private ServiceExecutors() {
+    }
+
+    /**
+     * 获取服务方法对应的执行器
+     *
+     * @param implClass 服务实现类
+     * @param method    接口方法
+     * @return
+     */
+    public static Executor get(Class<?> implClass, Method method) {
+        Executor executor = METHOD_EXECUTOR_CACHE.get(method);
+        if (executor != null) {
+            return executor;
+        }
+        return METHOD_EXECUTOR_CACHE.computeIfAbsent(method, key -> resolve(implClass, method));
+    }
+
+    /**
+     * 按类型获取共享执行器
+     *
+     * @param key 执行器类型，见 {@link ExecutorKeys}
+     * @return
+     */
+    public static Executor getByKey(String key) {
+        if (ExecutorKeys.INLINE.equals(key)) {
+            return INLINE_EXECUTOR;
+        }
+        if (!ExecutorKeys.VIRTUAL.equals(key) && !ExecutorKeys.PRIORITY.equals(key)) {
+            key = ExecutorKeys.THREAD_POOL;
+        }
+        return EXECUTOR_MAP.computeIfAbsent(key, ServiceExecutors::create);
+    }
+
+    /**
+     * 解析执行器：方法 @Bulkhead > 方法 @RpcExecutor > 类 @Bulkhead > 类 @RpcExecutor > 全局舱壁配置 > 全局执行器配置
+     */
+    private static Executor resolve(Class<?> implClass, Method method) {
+        try {
+            Method implMethod = implClass.getMethod(method.getName(), method.getParameterTypes());
+            Bulkhead methodBulkhead = implMethod.getAnnotation(Bulkhead.class);
+            if (methodBulkhead != null) {
+                return createBulkhead(implClass.getName() + "#" + method.getName(), methodBulkhead);
+            }
+            RpcExecutor methodAnnotation = implMethod.getAnnotation(RpcExecutor.class);
+            if (methodAnnotation != null) {
+                return getByKey(methodAnnotation.value());
+            }
+        } catch (NoSuchMethodException ignored) {
+            // 接口方法一定能在实现类上找到，这里只做兜底
+        }
+        Bulkhead classBulkhead = implClass.getAnnotation(Bulkhead.class);
+        if (classBulkhead != null) {
+            return SERVICE_BULKHEAD_MAP.computeIfAbsent(implClass,
+                    key -> createBulkhead(implClass.getName(), classBulkhead));
+        }
+        RpcExecutor classAnnotation = implClass.getAnnotation(RpcExecutor.class);
+        if (classAnnotation != null) {
+            return getByKey(classAnnotation.value());
+        }
+        if (RpcApplication.getRpcConfig().getBulkheadConfig().isEnabled()) {
+            return SERVICE_BULKHEAD_MAP.computeIfAbsent(implClass, key -> createBulkhead(implClass.getName(), null));
+        }
+        return getByKey(RpcApplication.getRpcConfig().getServerExecutorConfig().getType());
+    }
+
+    private static BulkheadExecutor createBulkhead(String name, Bulkhead annotation) {
+        RpcConfig.BulkheadConfig bulkheadConfig = RpcApplication.getRpcConfig().getBulkheadConfig();
+        int maxConcurrency = annotation != null && annotation.maxConcurrency() > 0
+                ? annotation.maxConcurrency() : bulkheadConfig.getMaxConcurrency();
+        int queueCapacity = annotation != null && annotation.queueCapacity() >= 0
+                ? annotation.queueCapacity() : bulkheadConfig.getQueueCapacity();
+        log.info("创建舱壁：{}，最大并发 {}，排队上限 {}", name, maxConcurrency, queueCapacity);
+        return new BulkheadExecutor(name, Math.max(1, maxConcurrency), queueCapacity);
+    }
+
+    private static Executor create(String key) {
+        if (ExecutorKeys.VIRTUAL.equals(key)) {
+            Executor virtualExecutor = createVirtual();
+            if (virtualExecutor != null) {
+                return virtualExecutor;
+            }
+            log.warn("当前 JDK 不支持虚拟线程，回退到有界线程池");
+            return getByKey(ExecutorKeys.THREAD_POOL);
+        }
+        if (ExecutorKeys.PRIORITY.equals(key)) {
+            RpcConfig.ServerExecutorConfig executorConfig = RpcApplication.getRpcConfig().getServerExecutorConfig();
+            return new PriorityExecutor(executorConfig.getCoreThreads(), executorConfig.getQueueCapacity());
+        }
+        return createThreadPool();
+    }
+
+    private static Executor createThreadPool() {
+        RpcConfig.ServerExecutorConfig executorConfig = RpcApplication.getRpcConfig().getServerExecutorConfig();
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+                executorConfig.getCoreThreads(),
+                Math.max(executorConfig.getCoreThreads(), executorConfig.getMaxThreads()),
+                executorConfig.getKeepAliveMillis(), TimeUnit.MILLISECONDS,
+                new PriorityTaskQueue(executorConfig.getQueueCapacity()),
+                new DefaultThreadFactory("rpc-business", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        RpcMetrics.registerGauge(MetricNames.SERVER_EXECUTOR_QUEUE_DEPTH, () -> threadPool.getQueue().size());
+        RpcMetrics.registerGauge(MetricNames.SERVER_EXECUTOR_ACTIVE_THREADS, threadPool::getActiveCount);
+        return threadPool;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器（编译目标为 JDK 11，不能直接引用 JDK 21 API）
+     *
+     * @return 不支持时返回 null
+     */
+    private static Executor createVirtual() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.yupi.yurpc.server.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发限制器模板：负责名额的占用与归还，子类只根据样本估算新的上限
+ */
+public abstract class AbstractConcurrencyLimiter implements ConcurrencyLimiter {
+
+    protected final int minLimit;
+
+    protected final int maxLimit;
+
+    /**
+     * 当前上限（整数部分），请求线程无锁读取
+     */
+    private volatile int limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    protected AbstractConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = clamp(initialLimit);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    @Override
+    public void onComplete(long rttNanos) {
+        // 使用归还前的在途数判断是否处于“应用受限”（负载远低于上限）状态
+        int currentInFlight = inFlight.getAndDecrement();
+        if (rttNanos > 0) {
+            synchronized (this) {
+                limit = clamp(update(rttNanos, currentInFlight));
+            }
+        }
+    }
+
+    @Override
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 根据一个时延样本估算新的上限（调用方已持有锁）
+     *
+     * @param rttNanos 样本时延
+     * @param inFlight 样本完成时的在途请求数
+     * @return 新的上限估计值
+     */
+    protected abstract double update(long rttNanos, int inFlight);
+
+    protected int clamp(double value) {
+        return (int) Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,40 @@
+package com.yupi.yurpc.server.limiter;
+
+/**
+ * 并发限制器：限制同时处理的请求数，上限由算法根据观测到的时延动态调整
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return false 表示已达上限，请求应被立即拒绝
+     */
+    boolean tryAcquire();
+
+    /**
+     * 请求处理完成，归还名额并记录时延样本
+     *
+     * @param rttNanos 从占用名额到处理完成的时间（包含排队时间）
+     */
+    void onComplete(long rttNanos);
+
+    /**
+     * 归还名额但不记录样本（例如请求未真正执行）
+     */
+    void onIgnore();
+
+    /**
+     * 当前并发上限
+     *
+     * @return
+     */
+    int getLimit();
+
+    /**
+     * 当前在途请求数
+     *
+     * @return
+     */
+    int getInFlight();
+}
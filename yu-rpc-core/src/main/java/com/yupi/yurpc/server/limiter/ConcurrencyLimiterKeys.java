@@ -0,0 +1,22 @@
+package com.yupi.yurpc.server.limiter;
+
+/**
+ * 并发限制算法键名常量
+ */
+public interface ConcurrencyLimiterKeys {
+
+    /**
+     * 不限制
+     */
+    String NONE = "none";
+
+    /**
+     * Vegas 风格
+     */
+    String VEGAS = "vegas";
+
+    /**
+     * Gradient2 风格
+     */
+    String GRADIENT = "gradient";
+}
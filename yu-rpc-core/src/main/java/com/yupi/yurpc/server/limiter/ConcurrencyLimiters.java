@@ -0,0 +1,157 @@
+package com.yupi.yurpc.server.limiter;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.annotation.ConcurrencyLimit;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务端并发限制器注册表。
+ * 按 方法注解（方法独立限制器） > 类注解（服务共享限制器） > 全局配置（服务共享限制器） 的优先级选择，结果按方法缓存。
+ */
+public class ConcurrencyLimiters {
+
+    /**
+     * 不限制并发
+     */
+    private static final ConcurrencyLimiter UNLIMITED = new ConcurrencyLimiter() {
+        @Override
+        public boolean tryAcquire() {
+            return true;
+        }
+
+        @Override
+        public void onComplete(long rttNanos) {
+        }
+
+        @Override
+        public void onIgnore() {
+        }
+
+        @Override
+        public int getLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getInFlight() {
+            return 0;
+        }
+    };
+
+    /**
+     * 服务方法 -> 限制器
+     */
+    private static final Map<Method, ConcurrencyLimiter> METHOD_LIMITER_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 服务实现类 -> 服务级共享限制器
+     */
+    private static final Map<Class<?>, ConcurrencyLimiter> SERVICE_LIMITER_MAP = new ConcurrentHashMap<>();
+
+    private ConcurrencyLimiters() {
+    }
+
+    /**
+     * 获取服务方法对应的限制器
+     *
+     * @param implClass 服务实现类
+     * @param method    服务方法
+     * @return
+     */
+    public static ConcurrencyLimiter get(Class<?> implClass, Method method) {
+        ConcurrencyLimiter limiter = METHOD_LIMITER_CACHE.get(method);
+        if (limiter != null) {
+            return limiter;
+        }
+        return METHOD_LIMITER_CACHE.computeIfAbsent(method, key -> resolve(implClass, method));
+    }
+
+    private static ConcurrencyLimiter resolve(Class<?> implClass, Method method) {
+        RpcConfig.ConcurrencyLimitConfig limitConfig = RpcApplication.getRpcConfig().getConcurrencyLimitConfig();
+        ConcurrencyLimit methodAnnotation = null;
+        try {
+            methodAnnotation = implClass.getMethod(method.getName(), method.getParameterTypes())
+                    .getAnnotation(ConcurrencyLimit.class);
+        } catch (NoSuchMethodException ignored) {
+            // 接口方法一定能在实现类上找到，这里只做兜底
+        }
+        if (methodAnnotation != null) {
+            return create(methodAnnotation.value(), methodAnnotation, limitConfig,
+                    implClass.getName() + "#" + method.getName());
+        }
+        ConcurrencyLimit classAnnotation = implClass.getAnnotation(ConcurrencyLimit.class);
+        String algorithm = classAnnotation != null ? classAnnotation.value() : limitConfig.getAlgorithm();
+        if (ConcurrencyLimiterKeys.NONE.equals(algorithm)) {
+            return UNLIMITED;
+        }
+        return SERVICE_LIMITER_MAP.computeIfAbsent(implClass,
+                key -> create(algorithm, classAnnotation, limitConfig, implClass.getName()));
+    }
+
+    /**
+     * 校验算法名称，未知的名称直接报错，不静默回退到其他算法
+     *
+     * @param algorithm 算法名称，见 {@link ConcurrencyLimiterKeys}
+     * @throws IllegalArgumentException 未知的算法名称
+     */
+    public static void checkAlgorithm(String algorithm) {
+        if (!ConcurrencyLimiterKeys.NONE.equals(algorithm)
+                && !ConcurrencyLimiterKeys.VEGAS.equals(algorithm)
+                && !ConcurrencyLimiterKeys.GRADIENT.equals(algorithm)) {
+            throw unknownAlgorithm(algorithm);
+        }
+    }
+
+    /**
+     * 校验服务实现类及其方法上 @ConcurrencyLimit 的算法名称（注册服务时调用）
+     *
+     * @param implClass 服务实现类
+     * @throws IllegalArgumentException 未知的算法名称
+     */
+    public static void checkAnnotations(Class<?> implClass) {
+        ConcurrencyLimit classAnnotation = implClass.getAnnotation(ConcurrencyLimit.class);
+        if (classAnnotation != null) {
+            checkAlgorithm(classAnnotation.value());
+        }
+        for (Method method : implClass.getMethods()) {
+            ConcurrencyLimit methodAnnotation = method.getAnnotation(ConcurrencyLimit.class);
+            if (methodAnnotation != null) {
+                checkAlgorithm(methodAnnotation.value());
+            }
+        }
+    }
+
+    private static IllegalArgumentException unknownAlgorithm(String algorithm) {
+        return new IllegalArgumentException("未知的并发限制算法：" + algorithm + "，可选值："
+                + String.join(" / ", ConcurrencyLimiterKeys.NONE, ConcurrencyLimiterKeys.VEGAS,
+                ConcurrencyLimiterKeys.GRADIENT));
+    }
+
+    private static ConcurrencyLimiter create(String algorithm, ConcurrencyLimit annotation,
+                                             RpcConfig.ConcurrencyLimitConfig limitConfig, String name) {
+        int initialLimit = annotation != null && annotation.initialLimit() > 0 ? annotation.initialLimit() : limitConfig.getInitialLimit();
+        int minLimit = annotation != null && annotation.minLimit() > 0 ? annotation.minLimit() : limitConfig.getMinLimit();
+        int maxLimit = annotation != null && annotation.maxLimit() > 0 ? annotation.maxLimit() : limitConfig.getMaxLimit();
+        ConcurrencyLimiter limiter;
+        switch (algorithm) {
+            case ConcurrencyLimiterKeys.NONE:
+                return UNLIMITED;
+            case ConcurrencyLimiterKeys.VEGAS:
+                limiter = new VegasLimiter(initialLimit, minLimit, maxLimit);
+                break;
+            case ConcurrencyLimiterKeys.GRADIENT:
+                limiter = new GradientLimiter(initialLimit, minLimit, maxLimit);
+                break;
+            default:
+                throw unknownAlgorithm(algorithm);
+        }
+        RpcMetrics.registerGauge(MetricNames.SERVER_LIMITER_LIMIT_PREFIX + name, limiter::getLimit);
+        return limiter;
+    }
+}
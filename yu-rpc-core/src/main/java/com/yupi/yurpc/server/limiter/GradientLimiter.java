@@ -0,0 +1,56 @@
+package com.yupi.yurpc.server.limiter;
+
+/**
+ * Gradient2 风格限制器。
+ * 比较长期时延（指数移动平均）与短期时延得到梯度 gradient = clamp(tolerance * longRtt / shortRtt, 0.5, 1)：
+ * 时延上升时按梯度收缩上限，时延平稳时在上限基础上增加 sqrt(limit) 的排队余量，并做平滑。
+ */
+public class GradientLimiter extends AbstractConcurrencyLimiter {
+
+    /**
+     * 允许短期时延高出长期时延的倍数
+     */
+    private static final double RTT_TOLERANCE = 1.5;
+
+    /**
+     * 上限平滑系数
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * 长期时延移动平均的窗口（样本数）
+     */
+    private static final int LONG_WINDOW = 600;
+
+    private double estimatedLimit;
+
+    private double longRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        this.estimatedLimit = getLimit();
+    }
+
+    @Override
+    protected double update(long rttNanos, int inFlight) {
+        double shortRtt = rttNanos;
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        }
+        // 长期时延明显高于短期时延（负载已下降）时，加速回落，避免上限长期被压低
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // 负载远低于上限时样本不能反映容量，不调整
+        if (inFlight < estimatedLimit / 2) {
+            return estimatedLimit;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        return estimatedLimit;
+    }
+}
@@ -0,0 +1,85 @@
+package com.yupi.yurpc.server.limiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Vegas 风格限制器（参考 TCP Vegas 拥塞控制）。
+ * 以观测到的最小时延作为无负载时延 rttNoLoad，估算排队长度 queue = limit * (1 - rttNoLoad / rtt)：
+ * 排队很少时增大上限，排队过多时减小上限。每隔一段样本重新探测 rttNoLoad，以适应服务本身时延的变化；
+ * 探测只在上限已稳定且负载较低时进行，避免把拥塞造成的排队时延当作无负载时延。
+ */
+public class VegasLimiter extends AbstractConcurrencyLimiter {
+
+    /**
+     * 每 PROBE_MULTIPLIER * limit 个样本重新探测一次无负载时延
+     */
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private double estimatedLimit;
+
+    private long rttNoLoad;
+
+    /**
+     * 距下一次探测的剩余样本数。在探测时确定，避免上限收缩时提前触发探测；
+     * 到期后等到满足探测条件的样本才探测
+     */
+    private long probeCountdown;
+
+    /**
+     * 上限连续未调整的样本数
+     */
+    private long stableSamples;
+
+    public VegasLimiter(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        this.estimatedLimit = getLimit();
+        this.probeCountdown = nextProbeCountdown();
+    }
+
+    @Override
+    protected double update(long rttNanos, int inFlight) {
+        probeCountdown--;
+        // 上限在一个上限的样本内未调整（稳定）且负载远低于上限时，样本时延基本不含排队，才用作新的无负载时延
+        if (probeCountdown <= 0 && stableSamples >= estimatedLimit && inFlight * 2 < estimatedLimit) {
+            probeCountdown = nextProbeCountdown();
+            rttNoLoad = rttNanos;
+            return estimatedLimit;
+        }
+        double newLimit = estimate(rttNanos, inFlight);
+        stableSamples = newLimit == estimatedLimit ? stableSamples + 1 : 0;
+        estimatedLimit = newLimit;
+        return estimatedLimit;
+    }
+
+    private double estimate(long rttNanos, int inFlight) {
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return estimatedLimit;
+        }
+        // 负载远低于上限时样本不能反映容量，不调整
+        if (inFlight * 2 < estimatedLimit) {
+            return estimatedLimit;
+        }
+        double queueSize = Math.ceil(estimatedLimit * (1 - (double) rttNoLoad / rttNanos));
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        double alpha = 3 * log;
+        double beta = 6 * log;
+        double limit = estimatedLimit;
+        if (queueSize <= log) {
+            limit += beta;
+        } else if (queueSize < alpha) {
+            limit += log;
+        } else if (queueSize > beta) {
+            limit -= log;
+        }
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * 下一次探测的样本间隔，附加随机抖动，避免多个限制器同时探测
+     */
+    private long nextProbeCountdown() {
+        long base = PROBE_MULTIPLIER * (long) estimatedLimit;
+        return base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcResponse;
+import io.vertx.core.net.NetSocket;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接持有者：一条 TCP 连接及其运行状态
+ */
+class ConnectionHolder {
+
+    /**
+     * 实际 TCP 连接。
+     * 一次具体 TCP 连接本体，用于 write、收包 handler、关闭/异常回调。
+     * 简单说：NetClient 负责“建连接”，NetSocket 负责“用连接”。
+     */
+    final NetSocket socket;
+
+    /**
+     * 连接是否可用。由 closeHandler / exceptionHandler 驱动变更。
+     */
+    volatile boolean active = true;
+
+    /**
+     * 最后活跃时间（最近一次业务请求的读写时间，心跳不计入）。
+     * 超过空闲 TTL 未活跃的连接会被关闭。
+     */
+    volatile long lastActiveTime = System.currentTimeMillis();
+
+    /**
+     * 最近一次收到任意帧（响应或心跳）的时间，用于判断连接是否存活
+     */
+    volatile long lastReadTime = System.currentTimeMillis();
+
+    /**
+     * 在途请求数（已发送、尚未完成），用于连接池按最少在途请求选择连接
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 连接内 requestId 生成器，顺序递增（从 1 开始），只需在本连接内唯一
+     */
+    private final AtomicLong requestIdGenerator = new AtomicLong();
+
+    /**
+     * 本连接的待响应请求表，响应匹配只访问本连接自己的结构
+     */
+    final PendingRequestTable pendingRequests = new PendingRequestTable();
+
+    /**
+     * 批量写器，未开启批量写时为 null
+     */
+    volatile WriteBatcher writeBatcher;
+
+    /**
+     * 是否已发起握手（每条连接只握手一次）
+     */
+    final AtomicBoolean handshakeStarted = new AtomicBoolean(false);
+
+    /**
+     * 握手得到的方法 id 表（方法签名 -> id），握手完成前为 null
+     */
+    volatile Map<String, Integer> methodIds;
+
+    ConnectionHolder(NetSocket socket) {
+        this.socket = socket;
+    }
+
+    long nextRequestId() {
+        return requestIdGenerator.incrementAndGet();
+    }
+
+    /**
+     * 连接失效时立即失败所有待响应请求，而不是等待各自超时
+     *
+     * @param cause
+     */
+    void failAllPending(Throwable cause) {
+        for (CompletableFuture<RpcResponse> future : pendingRequests.removeAll()) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    void touch() {
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    void touchRead() {
+        lastReadTime = System.currentTimeMillis();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 在途请求数未达上限时加一
+     *
+     * @param maxInFlight 连接级在途请求上限
+     * @return 是否占用成功
+     */
+    boolean tryIncrementInFlight(int maxInFlight) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void decrementInFlight() {
+        inFlight.decrementAndGet();
+    }
+}
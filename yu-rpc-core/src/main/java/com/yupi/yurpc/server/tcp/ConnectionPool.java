@@ -0,0 +1,517 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import com.yupi.yurpc.model.MethodTable;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
+import io.netty.util.Timeout;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单个服务地址（host:port）的连接池。
+ * 1. 每个地址维护 N 条连接，每条连接绑定到不同的 Vert.x event loop，分摊编码/刷写开销；
+ * 2. 请求时选择在途请求最少的连接；无可用连接时异步建连，并发调用方共享同一次连接尝试，连续失败时指数退避；
+ * 3. 所有连接都有在途请求且未达上限时，后台扩容一条新连接；
+ * 3.1 连接级、地址级在途请求数有上限，超限时快速失败或有界等待（背压）；
+ * 4. 定期心跳探活，淘汰半开连接并关闭长期空闲的连接。
+ */
+@Slf4j
+class ConnectionPool {
+
+    private final String serviceAddress;
+
+    private final String host;
+
+    private final int port;
+
+    private final NetClient netClient;
+
+    /**
+     * 当前池内连接，读多写少，使用写时复制列表
+     */
+    private final List<ConnectionHolder> connections = new CopyOnWriteArrayList<>();
+
+    /**
+     * 是否正在后台扩容，保证同一时刻最多一次扩容
+     */
+    private final AtomicBoolean growing = new AtomicBoolean(false);
+
+    /**
+     * 进行中的共享连接尝试（池内无可用连接时，并发调用方共享同一个 future）
+     */
+    private final AtomicReference<CompletableFuture<ConnectionHolder>> pendingConnect = new AtomicReference<>();
+
+    /**
+     * 连续连接失败次数，连接成功后清零
+     */
+    private final AtomicInteger connectFailures = new AtomicInteger();
+
+    /**
+     * 退避截止时间，在此之前不再向该地址发起连接
+     */
+    private volatile long nextConnectTime = 0L;
+
+    /**
+     * 排空截止时间：收到 GOAWAY 后，在此之前负载均衡跳过该地址（不影响建连）
+     */
+    private volatile long drainingUntil = 0L;
+
+    /**
+     * 地址级在途请求数（池内所有连接之和）
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 等待在途名额的请求（有界，数量由 waiterCount 控制）
+     */
+    private final Queue<CompletableFuture<ConnectionHolder>> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 提供者是否支持 v2（只有 v2 提供者能解析心跳帧，旧版本解码器会拒绝），按注册信息随调用刷新
+     */
+    volatile boolean heartbeatSupported;
+
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    ConnectionPool(String serviceAddress, String host, int port, NetClient netClient) {
+        this.serviceAddress = serviceAddress;
+        this.host = host;
+        this.port = port;
+        this.netClient = netClient;
+    }
+
+    /**
+     * 预热：一次性建立 minConnections 条连接
+     */
+    void warmUp() {
+        RpcConfig.ConnectionPoolConfig poolConfig = RpcApplication.getRpcConfig().getConnectionPoolConfig();
+        for (int i = connections.size(); i < poolConfig.getMinConnections(); i++) {
+            connect().whenComplete((holder, throwable) -> {
+                if (throwable != null) {
+                    log.warn("TCP 连接预热失败：{}", serviceAddress, throwable);
+                }
+            });
+        }
+    }
+
+    /**
+     * 获取一条连接并占用一个在途名额（连接级 + 地址级）。
+     * 名额不足时按配置快速失败（RejectedExecutionException）或在有界等待队列中等待，
+     * 请求完成后必须调用 {@link #release} 归还名额。
+     */
+    CompletableFuture<ConnectionHolder> acquire() {
+        return selectConnection().thenCompose(this::admit);
+    }
+
+    /**
+     * 归还在途名额，并唤醒等待中的请求
+     */
+    void release(ConnectionHolder holder) {
+        releasePermit(holder);
+        signalWaiters();
+    }
+
+    /**
+     * 选择一条连接（最少在途请求）。
+     * 池内有可用连接时立即返回已完成的 future，必要时后台扩容；
+     * 池内没有可用连接时，并发调用方共享同一次进行中的连接尝试，不阻塞调用线程，也不影响其他地址。
+     */
+    private CompletableFuture<ConnectionHolder> selectConnection() {
+        ConnectionHolder selected = leastInFlight();
+        if (selected == null) {
+            return connectShared();
+        }
+        RpcConfig.ConnectionPoolConfig poolConfig = RpcApplication.getRpcConfig().getConnectionPoolConfig();
+        int size = connections.size();
+        if (size < poolConfig.getMinConnections()
+                || (selected.getInFlight() > 0 && size < poolConfig.getMaxConnections())) {
+            growInBackground();
+        }
+        return CompletableFuture.completedFuture(selected);
+    }
+
+    /**
+     * 准入控制：优先占用选中连接的名额，失败时尝试池内其他连接；都失败时拒绝或排队等待
+     */
+    private CompletableFuture<ConnectionHolder> admit(ConnectionHolder selected) {
+        ConnectionHolder holder = tryReserve(selected) ? selected : reserveAny();
+        if (holder != null) {
+            return CompletableFuture.completedFuture(holder);
+        }
+        RpcConfig.BackpressureConfig backpressureConfig = RpcApplication.getRpcConfig().getBackpressureConfig();
+        if (backpressureConfig.isFailFast() || backpressureConfig.getMaxWaitMillis() <= 0) {
+            return reject("在途请求已达上限");
+        }
+        // 有界等待：队列已满时直接拒绝
+        if (waiterCount.incrementAndGet() > backpressureConfig.getMaxWaiters()) {
+            waiterCount.decrementAndGet();
+            return reject("等待队列已满");
+        }
+        CompletableFuture<ConnectionHolder> waiter = new CompletableFuture<>();
+        waiters.offer(waiter);
+        Timeout timeout = RequestTimeoutScheduler.schedule(() -> {
+            if (waiters.remove(waiter)) {
+                waiterCount.decrementAndGet();
+                RpcMetrics.increment(MetricNames.CLIENT_REQUEST_REJECTED);
+                waiter.completeExceptionally(new RejectedExecutionException(
+                        "等待在途名额超时：" + serviceAddress + "，" + backpressureConfig.getMaxWaitMillis() + " ms"));
+            }
+        }, backpressureConfig.getMaxWaitMillis());
+        // 等到名额时取消超时任务，不在时间轮上遗留无效任务直到到期
+        waiter.whenComplete((granted, throwable) -> timeout.cancel());
+        // 入队前可能刚好有名额归还，主动唤醒一次，避免丢失通知
+        signalWaiters();
+        return waiter;
+    }
+
+    private CompletableFuture<ConnectionHolder> reject(String reason) {
+        RpcMetrics.increment(MetricNames.CLIENT_REQUEST_REJECTED);
+        return CompletableFuture.failedFuture(new RejectedExecutionException(reason + "：" + serviceAddress));
+    }
+
+    /**
+     * 依次把空出的名额分配给等待中的请求（在名额归还、连接可写时调用）
+     */
+    private void signalWaiters() {
+        while (!waiters.isEmpty()) {
+            ConnectionHolder holder = reserveAny();
+            if (holder == null) {
+                return;
+            }
+            CompletableFuture<ConnectionHolder> waiter = waiters.poll();
+            if (waiter == null) {
+                releasePermit(holder);
+                return;
+            }
+            waiterCount.decrementAndGet();
+            waiter.complete(holder);
+        }
+    }
+
+    private ConnectionHolder reserveAny() {
+        for (ConnectionHolder holder : connections) {
+            if (tryReserve(holder)) {
+                return holder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尝试在指定连接上占用名额：连接可用、写队列未满、地址级与连接级在途数均未达上限
+     */
+    private boolean tryReserve(ConnectionHolder holder) {
+        if (!holder.active || holder.socket.writeQueueFull()) {
+            return false;
+        }
+        RpcConfig.BackpressureConfig backpressureConfig = RpcApplication.getRpcConfig().getBackpressureConfig();
+        int maxInFlightPerAddress = backpressureConfig.getMaxInFlightPerAddress();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlightPerAddress) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        if (!holder.tryIncrementInFlight(backpressureConfig.getMaxInFlightPerConnection())) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void releasePermit(ConnectionHolder holder) {
+        holder.decrementInFlight();
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 从池中移除连接（使用引用精确移除，避免误删并发下刚创建的新连接）
+     */
+    void remove(ConnectionHolder holder) {
+        connections.remove(holder);
+    }
+
+    /**
+     * 淘汰并关闭连接，同时立即失败该连接上的所有待响应请求
+     */
+    void evictAndClose(ConnectionHolder holder) {
+        if (holder == null) {
+            return;
+        }
+        holder.active = false;
+        remove(holder);
+        holder.failAllPending(new RuntimeException("TCP 连接已淘汰：" + serviceAddress));
+        try {
+            holder.socket.close();
+        } catch (Exception e) {
+            log.warn("关闭 TCP 连接失败：{}", serviceAddress, e);
+        }
+    }
+
+    /**
+     * 收到服务端 GOAWAY：连接移出连接池、不再承接新请求，已发出的请求继续等待响应，由服务端排空后关闭连接；
+     * 同时把地址标记为排空中，注册中心缓存更新前负载均衡优先选择其他节点。
+     * 不进入连接退避，节点重启后仍可立即重连，重连成功即清除标记。
+     */
+    void onGoAway(ConnectionHolder holder) {
+        holder.active = false;
+        remove(holder);
+        drainingUntil = System.currentTimeMillis()
+                + RpcApplication.getRpcConfig().getConnectionPoolConfig().getDrainingMillis();
+        log.info("收到服务端 GOAWAY，连接不再承接新请求：{}", serviceAddress);
+    }
+
+    /**
+     * 该地址是否处于排空中（最近收到 GOAWAY 且之后未重连成功）
+     */
+    boolean isDraining() {
+        return System.currentTimeMillis() < drainingUntil;
+    }
+
+    /**
+     * 心跳与空闲检查（由 VertxTcpClient 的定时器周期调用）：
+     * 1. 连续 maxMissed 个心跳周期未收到任何帧：判定为半开连接，淘汰（不论是否有在途请求，
+     *    服务端在 I/O 线程上直接响应心跳，不受业务排队影响，在途请求随连接失败后交给重试与容错）；
+     * 2. 超过空闲 TTL 无业务请求且无在途请求：关闭，释放服务端文件描述符，但至少保留 minConnections 条连接；
+     * 3. 超过一个心跳周期未收到任何帧：发送心跳帧探活。
+     * 只支持 v1 的提供者不发送心跳，也不做心跳超时判定。
+     */
+    void checkHeartbeat(RpcConfig.HeartbeatConfig heartbeatConfig) {
+        long now = System.currentTimeMillis();
+        long interval = heartbeatConfig.getIntervalMillis();
+        int minConnections = RpcApplication.getRpcConfig().getConnectionPoolConfig().getMinConnections();
+        boolean heartbeat = heartbeatSupported;
+        for (ConnectionHolder holder : connections) {
+            if (!holder.active) {
+                continue;
+            }
+            long readIdle = now - holder.lastReadTime;
+            if (heartbeat && readIdle > interval * heartbeatConfig.getMaxMissed()) {
+                log.warn("TCP 连接心跳超时，已淘汰：{}，{} ms 未收到任何数据，在途请求 {}",
+                        serviceAddress, readIdle, holder.getInFlight());
+                evictAndClose(holder);
+            } else if (now - holder.lastActiveTime > heartbeatConfig.getIdleTimeoutMillis()
+                    && holder.getInFlight() == 0 && activeConnections() > minConnections) {
+                log.info("TCP 连接空闲超时，已关闭：{}", serviceAddress);
+                evictAndClose(holder);
+            } else if (heartbeat && readIdle >= interval) {
+                sendHeartBeat(holder);
+            }
+        }
+    }
+
+    private int activeConnections() {
+        int count = 0;
+        for (ConnectionHolder holder : connections) {
+            if (holder.active) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 发送心跳帧（requestId 固定为 0，不进入待响应表，响应只用于刷新 lastReadTime）
+     */
+    private void sendHeartBeat(ConnectionHolder holder) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        // 心跳不需要附件，使用 v1 消息头（只发给支持 v2 的提供者，它们同时兼容 v1 消息头）
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V1);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum
+                .getEnumByValue(RpcApplication.getRpcConfig().getSerializer())
+                .getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HEART_BEAT.getKey());
+        try {
+            holder.socket.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null)), writeResult -> {
+                if (!writeResult.succeeded()) {
+                    log.warn("TCP 心跳写入失败，连接已淘汰：{}", serviceAddress, writeResult.cause());
+                    evictAndClose(holder);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("心跳消息编码错误：{}", serviceAddress, e);
+        }
+    }
+
+    /**
+     * 发起握手（每条连接只发一次），获取提供者的方法 id 表。
+     * 握手不阻塞请求：响应到达之前的请求仍按服务名、方法名发送
+     */
+    void handshake(ConnectionHolder holder) {
+        if (!holder.handshakeStarted.compareAndSet(false, true)) {
+            return;
+        }
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V2);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum
+                .getEnumByValue(RpcApplication.getRpcConfig().getSerializer())
+                .getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.HANDSHAKE.getKey());
+        try {
+            FrameWriter.write(holder.socket, FrameWriter.encode(new ProtocolMessage<>(header, new MethodTable())),
+                    writeResult -> {
+                        if (!writeResult.succeeded()) {
+                            log.warn("TCP 握手写入失败：{}", serviceAddress, writeResult.cause());
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("握手消息编码错误：{}", serviceAddress, e);
+        }
+    }
+
+    private ConnectionHolder leastInFlight() {
+        ConnectionHolder selected = null;
+        for (ConnectionHolder holder : connections) {
+            if (!holder.active) {
+                continue;
+            }
+            if (selected == null || holder.getInFlight() < selected.getInFlight()) {
+                selected = holder;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 发起或加入进行中的连接尝试（仅池内无可用连接时使用）。
+     * 通过 CAS 保证同一地址同一时刻只有一次共享连接尝试，完成后清空，下次失败可重新发起。
+     */
+    private CompletableFuture<ConnectionHolder> connectShared() {
+        while (true) {
+            CompletableFuture<ConnectionHolder> inProgress = pendingConnect.get();
+            if (inProgress != null) {
+                return inProgress;
+            }
+            CompletableFuture<ConnectionHolder> shared = new CompletableFuture<>();
+            if (!pendingConnect.compareAndSet(null, shared)) {
+                continue;
+            }
+            // 双重检查：CAS 成功前可能已有其他连接建立完成
+            ConnectionHolder holder = leastInFlight();
+            if (holder != null) {
+                pendingConnect.set(null);
+                shared.complete(holder);
+                return shared;
+            }
+            connect().whenComplete((newHolder, throwable) -> {
+                pendingConnect.set(null);
+                if (throwable != null) {
+                    shared.completeExceptionally(throwable);
+                } else {
+                    log.info("创建新的 TCP 连接成功：{}", serviceAddress);
+                    shared.complete(newHolder);
+                }
+            });
+            return shared;
+        }
+    }
+
+    private void growInBackground() {
+        if (System.currentTimeMillis() < nextConnectTime || !growing.compareAndSet(false, true)) {
+            return;
+        }
+        connect().whenComplete((holder, throwable) -> {
+            growing.set(false);
+            if (throwable != null) {
+                log.warn("TCP 连接池扩容失败：{}", serviceAddress, throwable);
+            } else {
+                log.info("TCP 连接池扩容成功：{}，当前连接数 {}", serviceAddress, connections.size());
+            }
+        });
+    }
+
+    /**
+     * 异步建立一条连接，成功后加入连接池。
+     * 每次都在新分配的 event loop 上下文中发起连接，使池内连接分散到不同的 event loop。
+     * 连接超时由 NetClientOptions.connectTimeout 控制；处于退避期时直接失败，不发起连接。
+     */
+    private CompletableFuture<ConnectionHolder> connect() {
+        long now = System.currentTimeMillis();
+        if (now < nextConnectTime) {
+            return CompletableFuture.failedFuture(new RuntimeException(
+                    "TCP 连接退避中：" + serviceAddress + "，" + (nextConnectTime - now) + " ms 后重试"));
+        }
+        CompletableFuture<ConnectionHolder> connectFuture = new CompletableFuture<>();
+        VertxInternal vertx = (VertxInternal) RpcApplication.getVertx();
+        vertx.createEventLoopContext().runOnContext(v -> netClient.connect(port, host, result -> {
+            if (!result.succeeded()) {
+                onConnectFailure();
+                connectFuture.completeExceptionally(
+                        new RuntimeException("TCP 连接失败：" + serviceAddress, result.cause()));
+                return;
+            }
+            connectFailures.set(0);
+            nextConnectTime = 0L;
+            drainingUntil = 0L;
+
+            NetSocket socket = result.result();
+            ConnectionHolder newHolder = new ConnectionHolder(socket);
+            RpcConfig.WriteBatchConfig writeBatchConfig = RpcApplication.getRpcConfig().getWriteBatchConfig();
+            if (writeBatchConfig.isEnabled()) {
+                // 连接回调运行在连接所属的 event loop 上下文中
+                newHolder.writeBatcher = new WriteBatcher(socket, Vertx.currentContext(), writeBatchConfig, cause -> {
+                    log.warn("TCP 批量写入失败，连接已淘汰：{}", serviceAddress, cause);
+                    evictAndClose(newHolder);
+                });
+            }
+
+            socket.handler(new TcpBufferHandlerWrapper(new TcpClientHandler(newHolder, this)));
+            // 写队列从满恢复可写时，唤醒等待中的请求
+            socket.drainHandler(ignored -> signalWaiters());
+            socket.closeHandler(ignored -> {
+                newHolder.active = false;
+                remove(newHolder);
+                newHolder.failAllPending(new RuntimeException("TCP 连接已关闭：" + serviceAddress));
+                log.info("TCP 连接关闭：{}", serviceAddress);
+            });
+            socket.exceptionHandler(throwable -> {
+                newHolder.active = false;
+                remove(newHolder);
+                newHolder.failAllPending(new RuntimeException("TCP 连接异常：" + serviceAddress, throwable));
+                log.warn("TCP 连接异常，已淘汰：{}", serviceAddress, throwable);
+            });
+
+            connections.add(newHolder);
+            connectFuture.complete(newHolder);
+            // 新连接带来新的名额
+            signalWaiters();
+        }));
+        return connectFuture;
+    }
+
+    /**
+     * 连接失败：按连续失败次数指数退避，退避期内该地址的连接请求直接失败
+     */
+    private void onConnectFailure() {
+        RpcConfig.ConnectionPoolConfig poolConfig = RpcApplication.getRpcConfig().getConnectionPoolConfig();
+        int failures = connectFailures.incrementAndGet();
+        long backoff = poolConfig.getConnectBackoffInitialMillis() << Math.min(failures - 1, 20);
+        backoff = Math.min(backoff, poolConfig.getConnectBackoffMaxMillis());
+        nextConnectTime = System.currentTimeMillis() + backoff;
+        log.warn("TCP 连接失败：{}，连续失败 {} 次，退避 {} ms", serviceAddress, failures, backoff);
+    }
+}
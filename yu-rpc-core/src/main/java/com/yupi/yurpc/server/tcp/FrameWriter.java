@@ -0,0 +1,93 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.protocol.ProtocolMessageCompressorEnum;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.impl.NetSocketInternal;
+
+import java.io.IOException;
+
+/**
+ * 池化帧的编码与写出。
+ * 请求、响应帧编码到池化缓冲区（默认直接内存），以 Netty 消息的形式写入通道，写出后由 Netty 释放；
+ * 不能包装成 Vert.x Buffer 经 socket.write 写出，Vert.x 会将其视为不可释放的缓冲区，导致池内存泄漏。
+ */
+class FrameWriter {
+
+    /**
+     * 池化堆内存分配器（默认分配器优先直接内存）
+     */
+    private static final ByteBufAllocator HEAP_ALLOCATOR = new PooledByteBufAllocator(false);
+
+    private FrameWriter() {
+    }
+
+    static ByteBufAllocator allocator() {
+        return RpcApplication.getRpcConfig().getTransportConfig().isDirectBuffer()
+                ? PooledByteBufAllocator.DEFAULT
+                : HEAP_ALLOCATOR;
+    }
+
+    static ByteBuf encode(ProtocolMessage<?> protocolMessage) throws IOException {
+        return ProtocolMessageEncoder.encode(protocolMessage, allocator());
+    }
+
+    /**
+     * 编码请求、响应帧，按压缩配置压缩消息体
+     *
+     * @param method 服务名#方法名，用于按方法记录压缩指标
+     */
+    static ByteBuf encode(ProtocolMessage<?> protocolMessage, String method) throws IOException {
+        RpcConfig.CompressConfig compressConfig = RpcApplication.getRpcConfig().getCompressConfig();
+        protocolMessage.getHeader().setCompressor(compressorKey(compressConfig));
+        return ProtocolMessageEncoder.encode(protocolMessage, allocator(), compressConfig.getThreshold(), method);
+    }
+
+    /**
+     * 以已序列化的消息体编码，按压缩配置压缩消息体
+     *
+     * @param method 服务名#方法名，用于按方法记录压缩指标
+     */
+    static ByteBuf encode(ProtocolMessage.Header header, byte[] bodyBytes, String method) {
+        RpcConfig.CompressConfig compressConfig = RpcApplication.getRpcConfig().getCompressConfig();
+        header.setCompressor(compressorKey(compressConfig));
+        return ProtocolMessageEncoder.encode(header, bodyBytes, allocator(), compressConfig.getThreshold(), method);
+    }
+
+    private static byte compressorKey(RpcConfig.CompressConfig compressConfig) {
+        ProtocolMessageCompressorEnum compressorEnum = ProtocolMessageCompressorEnum.getEnumByValue(compressConfig.getCompressor());
+        if (compressorEnum == null) {
+            throw new RuntimeException("不支持的压缩算法：" + compressConfig.getCompressor());
+        }
+        return (byte) compressorEnum.getKey();
+    }
+
+    /**
+     * 合并多帧的复合缓冲区（不拷贝各帧数据，释放时一并释放各帧）
+     *
+     * @param maxFrames 帧数上限，不超过该值时不会触发合并拷贝
+     */
+    static CompositeByteBuf compositeBuffer(int maxFrames) {
+        return allocator().compositeBuffer(Math.max(2, maxFrames));
+    }
+
+    /**
+     * 写出帧，缓冲区的所有权转交给 Netty
+     */
+    static void write(NetSocket socket, ByteBuf frame) {
+        ((NetSocketInternal) socket).writeMessage(frame);
+    }
+
+    static void write(NetSocket socket, ByteBuf frame, Handler<AsyncResult<Void>> handler) {
+        ((NetSocketInternal) socket).writeMessage(frame, handler);
+    }
+}
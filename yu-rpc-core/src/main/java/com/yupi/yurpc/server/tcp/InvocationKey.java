@@ -0,0 +1,78 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.registry.MethodInvoker;
+import com.yupi.yurpc.serializer.Serializer;
+import com.yupi.yurpc.serializer.SerializerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 调用键：服务方法调用器 + 序列化器 + 序列化后的参数。
+ * 参数相同的两次调用得到相同的键，用于请求合并与响应缓存。
+ */
+class InvocationKey {
+
+    private final MethodInvoker invoker;
+
+    private final byte serializer;
+
+    private final byte[] args;
+
+    private final int hash;
+
+    private InvocationKey(MethodInvoker invoker, byte serializer, byte[] args) {
+        this.invoker = invoker;
+        this.serializer = serializer;
+        this.args = args;
+        this.hash = 31 * (31 * System.identityHashCode(invoker) + serializer) + Arrays.hashCode(args);
+    }
+
+    /**
+     * 构造调用键（参数使用请求的序列化器序列化）
+     *
+     * @param invoker       服务方法调用器
+     * @param rpcRequest    请求
+     * @param serializerKey 请求使用的序列化器 key
+     * @return
+     */
+    static InvocationKey of(MethodInvoker invoker, RpcRequest rpcRequest, byte serializerKey) {
+        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(serializerKey);
+        Serializer serializer = SerializerFactory.getInstance(serializerEnum.getValue());
+        try {
+            return new InvocationKey(invoker, serializerKey, serializer.serialize(rpcRequest.getArgs()));
+        } catch (IOException e) {
+            throw new RuntimeException("调用键序列化失败", e);
+        }
+    }
+
+    MethodInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * 键占用的字节数（近似），用于按字节限制缓存大小
+     */
+    int size() {
+        return args.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InvocationKey)) {
+            return false;
+        }
+        InvocationKey other = (InvocationKey) o;
+        return invoker == other.invoker && serializer == other.serializer && Arrays.equals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
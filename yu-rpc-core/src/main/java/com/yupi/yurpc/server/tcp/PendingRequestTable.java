@@ -0,0 +1,183 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 连接级待响应请求表：requestId(long) -> Future
+ * 1. 开放寻址 + 线性探测，键为原始 long，查找/删除不装箱、不分配对象；
+ * 2. 删除采用向后移位（backward shift），无需墓碑标记，表不会因反复增删而退化；
+ * 3. 每条连接独占一张表，只有本连接的写入线程、I/O 线程、超时线程会访问，使用对象锁即可，无全局竞争。
+ * requestId 由连接内计数器从 1 开始分配，0 作为空槽标记。
+ */
+class PendingRequestTable {
+
+    /**
+     * 空槽标记
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * 初始容量（必须是 2 的幂）
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+
+    private CompletableFuture<RpcResponse>[] values;
+
+    /**
+     * 容量的 log2，用于斐波那契散列取高位
+     */
+    private int bits;
+
+    private int mask;
+
+    private int size;
+
+    PendingRequestTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 放入待响应请求
+     *
+     * @param requestId 请求 id（大于 0）
+     * @param future
+     */
+    synchronized void put(long requestId, CompletableFuture<RpcResponse> future) {
+        if (requestId == EMPTY) {
+            throw new IllegalArgumentException("requestId 不能为 0");
+        }
+        // 负载因子 0.5，保证探测链足够短
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int index = indexOf(requestId);
+        if (keys[index] == EMPTY) {
+            size++;
+        }
+        keys[index] = requestId;
+        values[index] = future;
+    }
+
+    /**
+     * 取出并移除待响应请求
+     *
+     * @param requestId
+     * @return 不存在时返回 null
+     */
+    synchronized CompletableFuture<RpcResponse> remove(long requestId) {
+        int index = indexOf(requestId);
+        if (keys[index] == EMPTY) {
+            return null;
+        }
+        CompletableFuture<RpcResponse> future = values[index];
+        removeAt(index);
+        return future;
+    }
+
+    /**
+     * 仅当 requestId 仍映射到指定 future 时移除
+     *
+     * @param requestId
+     * @param future
+     * @return 是否移除成功
+     */
+    synchronized boolean remove(long requestId, CompletableFuture<RpcResponse> future) {
+        int index = indexOf(requestId);
+        if (keys[index] == EMPTY || values[index] != future) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * 取出并清空所有待响应请求（连接断开时使用）
+     *
+     * @return
+     */
+    synchronized List<CompletableFuture<RpcResponse>> removeAll() {
+        List<CompletableFuture<RpcResponse>> futures = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                futures.add(values[i]);
+            }
+        }
+        allocate(INITIAL_CAPACITY);
+        return futures;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 查找 key 所在槽位；不存在时返回探测链末尾的空槽
+     */
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * 斐波那契散列：取乘积高位，连续的 requestId 也能均匀分布
+     */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    /**
+     * 删除槽位并向后移位，填补探测链中的空洞
+     */
+    private void removeAt(int index) {
+        size--;
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int ideal = slot(keys[next]);
+            // ideal 不在 (hole, next] 区间内（环形）时，该元素可以前移到空洞处
+            boolean stay = hole <= next
+                    ? (hole < ideal && ideal <= next)
+                    : (hole < ideal || ideal <= next);
+            if (!stay) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        CompletableFuture<RpcResponse>[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new CompletableFuture[capacity];
+        bits = Integer.numberOfTrailingZeros(capacity);
+        mask = capacity - 1;
+        size = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 服务端请求合并（single-flight），只用于标注了 @Idempotent 的方法。
+ * 以调用键（服务方法 + 序列化后的参数）为键：第一个请求（leader）正常执行，执行期间到达的相同请求（follower）
+ * 不占用限制器与执行器，等待 leader 的结果（包括拒绝状态）后各自响应。结果产生后立即移除，不做缓存。
+ * follower 同样计入服务端在途请求，直到其响应发出，优雅停机时不会在 follower 响应前关闭服务器。
+ */
+class RequestCoalescer {
+
+    /**
+     * 合并键 -> 进行中的调用
+     */
+    private static final Map<InvocationKey, Flight> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    static {
+        RpcMetrics.registerGauge(MetricNames.SERVER_COALESCE_HIT_RATIO, () -> {
+            long hit = RpcMetrics.getCounter(MetricNames.SERVER_COALESCE_HIT);
+            long total = hit + RpcMetrics.getCounter(MetricNames.SERVER_COALESCE_MISS);
+            return total == 0 ? 0 : hit * 100 / total;
+        });
+    }
+
+    private RequestCoalescer() {
+    }
+
+    /**
+     * 加入合并：已有相同请求在执行时注册结果回调并返回 null（本请求无需执行）；
+     * 否则本请求成为 leader，返回其 Flight，执行完成后必须调用 {@link Flight#complete}，异常退出时调用 {@link Flight#abandon}
+     *
+     * @param key      调用键
+     * @param follower 作为 follower 时的结果回调 (响应, 状态)
+     * @return leader 的 Flight，follower 返回 null
+     */
+    static Flight join(InvocationKey key, BiConsumer<RpcResponse, ProtocolMessageStatusEnum> follower) {
+        Flight flight = new Flight(key);
+        Flight existing = IN_FLIGHT.putIfAbsent(key, flight);
+        if (existing != null) {
+            RpcMetrics.increment(MetricNames.SERVER_COALESCE_HIT);
+            VertxTcpServer.requestStarted();
+            existing.result.thenAccept(result -> {
+                try {
+                    follower.accept(result.response, result.status);
+                } finally {
+                    VertxTcpServer.requestCompleted();
+                }
+            });
+            return null;
+        }
+        RpcMetrics.increment(MetricNames.SERVER_COALESCE_MISS);
+        return flight;
+    }
+
+    /**
+     * 一次进行中的合并调用
+     */
+    static class Flight {
+
+        private final InvocationKey key;
+
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        private Flight(InvocationKey key) {
+            this.key = key;
+        }
+
+        /**
+         * leader 得到结果：先移除（之后到达的请求重新执行），再分发给所有 follower
+         */
+        void complete(RpcResponse response, ProtocolMessageStatusEnum status) {
+            IN_FLIGHT.remove(key, this);
+            result.complete(new Result(response, status));
+        }
+
+        /**
+         * leader 得到结果前异常退出：以异常响应所有 follower 并移除，已完成时忽略
+         */
+        void abandon(Throwable cause) {
+            RpcResponse response = new RpcResponse();
+            response.setMessage("服务端处理异常：" + cause.getMessage());
+            response.setException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            complete(response, ProtocolMessageStatusEnum.OK);
+        }
+    }
+
+    private static class Result {
+
+        private final RpcResponse response;
+
+        private final ProtocolMessageStatusEnum status;
+
+        private Result(RpcResponse response, ProtocolMessageStatusEnum status) {
+            this.response = response;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.yupi.yurpc.server.tcp;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求超时调度器（基于 Netty 时间轮 HashedWheelTimer）
+ * 所有在途请求共享一个时间轮：新增、取消超时任务都是 O(1)，
+ * 超时由时间轮线程统一触发，不再依赖调用线程阻塞在 future.get(timeout) 上，异步调用同样生效。
+ * 到期任务转交回调线程池执行：任务会完成用户的 future 并同步执行其回调，不能占用唯一的时间轮线程。
+ */
+class RequestTimeoutScheduler {
+
+    /**
+     * 时间轮刻度（毫秒），超时精度约为一个刻度
+     */
+    private static final long TICK_DURATION_MILLIS = 10;
+
+    /**
+     * 时间轮槽数
+     */
+    private static final int TICKS_PER_WHEEL = 512;
+
+    /**
+     * 全局共享的时间轮，守护线程，不阻止 JVM 退出
+     */
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("rpc-request-timeout", true),
+            TICK_DURATION_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    /**
+     * 执行到期任务的线程池，守护线程，空闲时回收
+     */
+    private static final ThreadPoolExecutor CALLBACK_EXECUTOR;
+
+    static {
+        int threads = Runtime.getRuntime().availableProcessors();
+        CALLBACK_EXECUTOR = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DefaultThreadFactory("rpc-timeout-callback", true));
+        CALLBACK_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private RequestTimeoutScheduler() {
+    }
+
+    /**
+     * 注册超时任务
+     *
+     * @param task          到期执行的任务（在回调线程池上执行）
+     * @param timeoutMillis 超时时间
+     * @return 可用于取消任务的句柄
+     */
+    static Timeout schedule(Runnable task, long timeoutMillis) {
+        return TIMER.newTimeout(timeout -> CALLBACK_EXECUTOR.execute(task), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,136 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.annotation.ResponseCache;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import com.yupi.yurpc.registry.MethodInvoker;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 服务端响应缓存（每个标注了 @ResponseCache 的方法一个缓存）。
+ * 基于 Caffeine：写入后按 TTL 过期，按条目数或响应体字节数限制容量，淘汰策略为 W-TinyLFU；
+ * 缓存值为已序列化的响应体，命中时直接拼接协议头写出。
+ * 按方法的指标以完整方法签名命名，重载方法互不覆盖。
+ */
+class ResponseCaches {
+
+    /**
+     * 服务方法调用器 -> 缓存
+     */
+    private static final Map<MethodInvoker, MethodCache> CACHE_MAP = new ConcurrentHashMap<>();
+
+    static {
+        RpcMetrics.registerGauge(MetricNames.SERVER_CACHE_HIT_RATIO,
+                () -> hitRatio(MetricNames.SERVER_CACHE_HIT, MetricNames.SERVER_CACHE_MISS));
+    }
+
+    private ResponseCaches() {
+    }
+
+    /**
+     * 查询缓存的响应体，并记录命中 / 未命中
+     *
+     * @param key 调用键（服务方法须标注 @ResponseCache）
+     * @return 已序列化的响应体，未命中时为 null
+     */
+    static byte[] getIfPresent(InvocationKey key) {
+        MethodCache methodCache = get(key.getInvoker());
+        byte[] body = methodCache.cache.getIfPresent(key);
+        if (body != null) {
+            RpcMetrics.increment(MetricNames.SERVER_CACHE_HIT);
+            RpcMetrics.increment(methodCache.hitMetric);
+        } else {
+            RpcMetrics.increment(MetricNames.SERVER_CACHE_MISS);
+            RpcMetrics.increment(methodCache.missMetric);
+        }
+        return body;
+    }
+
+    /**
+     * 缓存已序列化的响应体
+     *
+     * @param key  调用键
+     * @param body 已序列化的响应体
+     */
+    static void put(InvocationKey key, byte[] body) {
+        get(key.getInvoker()).cache.put(key, body);
+    }
+
+    private static MethodCache get(MethodInvoker invoker) {
+        MethodCache methodCache = CACHE_MAP.get(invoker);
+        if (methodCache != null) {
+            return methodCache;
+        }
+        return CACHE_MAP.computeIfAbsent(invoker, ResponseCaches::create);
+    }
+
+    private static MethodCache create(MethodInvoker invoker) {
+        RpcConfig.ResponseCacheConfig cacheConfig = RpcApplication.getRpcConfig().getResponseCacheConfig();
+        ResponseCache annotation = invoker.getMethod().getAnnotation(ResponseCache.class);
+        long ttlMillis = annotation.ttlMillis() > 0 ? annotation.ttlMillis() : cacheConfig.getTtlMillis();
+        long maxEntries = annotation.maxEntries() > 0 ? annotation.maxEntries() : cacheConfig.getMaxEntries();
+        long maxBytes = annotation.maxBytes() > 0 ? annotation.maxBytes() : cacheConfig.getMaxBytes();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS);
+        Cache<InvocationKey, byte[]> cache;
+        if (maxBytes > 0) {
+            cache = builder.maximumWeight(maxBytes)
+                    .<InvocationKey, byte[]>weigher((key, body) -> key.size() + body.length)
+                    .build();
+        } else {
+            cache = builder.maximumSize(maxEntries).build();
+        }
+        String prefix = MetricNames.SERVER_CACHE_METHOD_PREFIX + signature(invoker);
+        MethodCache methodCache = new MethodCache(cache, prefix + ".hit", prefix + ".miss");
+        RpcMetrics.registerGauge(prefix + ".size", cache::estimatedSize);
+        RpcMetrics.registerGauge(prefix + ".hit.ratio", () -> hitRatio(methodCache.hitMetric, methodCache.missMetric));
+        return methodCache;
+    }
+
+    /**
+     * 完整方法签名：实现类#方法名(参数类型,...)
+     */
+    private static String signature(MethodInvoker invoker) {
+        Method method = invoker.getMethod();
+        return invoker.getImplClass().getName() + "#" + method.getName()
+                + Arrays.stream(invoker.getParameterTypes()).map(Class::getTypeName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    /**
+     * 命中率（百分比）
+     */
+    private static long hitRatio(String hitMetric, String missMetric) {
+        long hit = RpcMetrics.getCounter(hitMetric);
+        long total = hit + RpcMetrics.getCounter(missMetric);
+        return total == 0 ? 0 : hit * 100 / total;
+    }
+
+    /**
+     * 方法缓存及其指标名（预先拼接，避免每次请求拼接字符串）
+     */
+    private static class MethodCache {
+
+        private final Cache<InvocationKey, byte[]> cache;
+
+        private final String hitMetric;
+
+        private final String missMetric;
+
+        MethodCache(Cache<InvocationKey, byte[]> cache, String hitMetric, String missMetric) {
+            this.cache = cache;
+            this.hitMetric = hitMetric;
+            this.missMetric = missMetric;
+        }
+    }
+}
@@ -1,60 +1,65 @@
 package com.yupi.yurpc.server.tcp;
 
-import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.protocol.ProtocolMessageDecoder;
+import com.yupi.yurpc.utils.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.parsetools.RecordParser;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * 装饰者模式（使用 recordParser 对原有的 buffer 处理能力进行增强）
+ * 装饰者模式（对原有的 buffer 处理能力进行增强，按 头 + 体 切分出完整的消息帧，兼容 v1、v2 消息头）
+ * 帧切分不复制数据：
+ * 1. 完整落在一次读取内的帧，直接以该次读取数据的切片交给下游；
+ * 2. 跨多次读取的帧，各段以组件形式挂到 CompositeByteBuf 上，凑齐后同样以切片交给下游。
+ * Vert.x 交给 NetSocket 的 Buffer 已是独立的堆内存（非池化），切片可在下游解码期间安全持有。
  */
 @Slf4j
 public class TcpBufferHandlerWrapper implements Handler<Buffer> {
 
-    private final RecordParser recordParser;
+    private final Handler<Buffer> bufferHandler;
 
-    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler) {
-        this.recordParser = initRecordParser(bufferHandler);
-    }
+    /**
+     * 尚未凑成完整帧的数据，无剩余数据时为 null
+     */
+    private CompositeByteBuf pending;
 
-    private RecordParser initRecordParser(Handler<Buffer> bufferHandler) {
-        // 构造parser
-        RecordParser parser = RecordParser.newFixed(ProtocolConstant.MESSAGE_HEADER_LENGTH);
-        parser.setOutput(new Handler<Buffer>() {
-            // 初始化
-            int size = -1;
-            // 一次完整的读取（头 + 体）
-            Buffer resultBuffer = Buffer.buffer();
-
-            @Override
-            public void handle(Buffer buffer) {
-                if (-1 == size) {
-                    // 读取消息体长度
-                    size = buffer.getInt(13);
-                    parser.fixedSizeMode(size);
-                    // 写入头信息到结果
-                    resultBuffer.appendBuffer(buffer);
-                } else {
-                    // 写入体信息到结果
-                    resultBuffer.appendBuffer(buffer);
-//                    log.info(resultBuffer.toString());
-                    // 🔥🔥【核心修复】🔥🔥：必须要把做好的菜端出去！
-                    // 调用外部传入的 handler，例如把完整数据包传给 TcpServerHandler 去解码和执行业务
-                    bufferHandler.handle(resultBuffer);
-                    // 重置一轮
-                    parser.fixedSizeMode(ProtocolConstant.MESSAGE_HEADER_LENGTH);
-                    size = -1;
-                    resultBuffer = Buffer.buffer();
-                }
-            }
-        });
-
-        return parser;
+    public TcpBufferHandlerWrapper(Handler<Buffer> bufferHandler) {
+        this.bufferHandler = bufferHandler;
     }
 
     @Override
     public void handle(Buffer buffer) {
-        recordParser.handle(buffer);
+        ByteBuf in = BufferUtils.toByteBuf(buffer);
+        if (!in.isReadable()) {
+            return;
+        }
+        if (pending != null) {
+            // 拼接到剩余数据之后（不复制，也不因组件过多而合并）
+            pending.addComponent(true, in);
+            in = pending;
+        }
+        while (true) {
+            // 根据消息头计算整帧长度，数据不足时等待后续数据
+            int frameLength = ProtocolMessageDecoder.frameLength(in);
+            if (frameLength < 0 || in.readableBytes() < frameLength) {
+                break;
+            }
+            ByteBuf frame = in.slice(in.readerIndex(), frameLength);
+            in.skipBytes(frameLength);
+            // 把完整数据包交给外部传入的 handler，例如 TcpServerHandler 去解码和执行业务
+            bufferHandler.handle(BufferUtils.toBuffer(frame));
+        }
+        if (!in.isReadable()) {
+            pending = null;
+        } else if (in == pending) {
+            // 释放已完整消费的组件
+            pending.discardReadComponents();
+        } else {
+            pending = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+            pending.addComponent(true, in.slice());
+        }
     }
 }
@@ -1,8 +1,13 @@
 package com.yupi.yurpc.server.tcp;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.exception.RpcRejectedException;
+import com.yupi.yurpc.model.MethodTable;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.protocol.ProtocolMessage;
 import com.yupi.yurpc.protocol.ProtocolMessageDecoder;
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 
@@ -14,6 +19,21 @@ import java.util.concurrent.CompletableFuture;
  */
 public class TcpClientHandler implements Handler<Buffer> {
 
+    /**
+     * 所属连接，响应只在本连接的待响应表中匹配
+     */
+    private final ConnectionHolder holder;
+
+    /**
+     * 连接所属的连接池，收到 GOAWAY 时将连接移出
+     */
+    private final ConnectionPool pool;
+
+    TcpClientHandler(ConnectionHolder holder, ConnectionPool pool) {
+        this.holder = holder;
+        this.pool = pool;
+    }
+
     @Override
     public void handle(Buffer buffer) {
         // 🔍 埋点 3
@@ -21,29 +41,58 @@ public class TcpClientHandler implements Handler<Buffer> {
         // 1. 解码响应数据
         ProtocolMessage<RpcResponse> rpcResponseProtocolMessage;
         try {
-            rpcResponseProtocolMessage = (ProtocolMessage<RpcResponse>) ProtocolMessageDecoder.decode(buffer);
+            rpcResponseProtocolMessage = (ProtocolMessage<RpcResponse>) ProtocolMessageDecoder.decode(buffer,
+                    RpcApplication.getRpcConfig().getCompressConfig().getMaxDecompressedLength());
         } catch (IOException e) {
             throw new RuntimeException("协议消息解码错误");
         }
 
+        // 任何入站帧都说明连接仍然存活；心跳响应到此为止
+        holder.touchRead();
+        byte type = rpcResponseProtocolMessage.getHeader().getType();
+        if (type == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+            return;
+        }
+        // 握手响应：记录方法 id 表，此后本连接上的请求只携带方法 id
+        if (type == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+            MethodTable methodTable = (MethodTable) (Object) rpcResponseProtocolMessage.getBody();
+            holder.methodIds = methodTable.getMethodIds();
+            return;
+        }
+        // 服务端即将下线：连接不再承接新请求，已发出的请求继续等待响应
+        if (type == ProtocolMessageTypeEnum.GO_AWAY.getKey()) {
+            pool.onGoAway(holder);
+            return;
+        }
+
         // 2. 获取 RequestId
         RpcResponse rpcResponse = rpcResponseProtocolMessage.getBody();
         long requestId = rpcResponseProtocolMessage.getHeader().getRequestId();
 //        System.out.println("DEBUG: 响应 ID = " + requestId);
 
-        // 3. 【关键】去全局 Pending Map 中找到对应的 Future，并完成它
+        // 3. 【关键】去本连接的待响应表中找到对应的 Future，并完成它
         // 这样发起请求的那个线程就会从 .get() 中苏醒，拿到结果
         // remove 表示用完即销毁，防止内存泄漏
         // 🔥🔥🔥 核心修复 🔥🔥🔥
-        // 1. 从 Map 中移除并获取 Future
-        CompletableFuture<RpcResponse> future = VertxTcpClient.PENDING_REQUEST_MAP.remove(requestId);
+        // 1. 从待响应表中移除并获取 Future
+        CompletableFuture<RpcResponse> future = holder.pendingRequests.remove(requestId);
 
         // 2. 如果不为 null，说明主线程还在等，唤醒它
         if (future != null) {
+            byte status = rpcResponseProtocolMessage.getHeader().getStatus();
+            if (status == ProtocolMessageStatusEnum.OVERLOADED.getValue()
+                    || status == ProtocolMessageStatusEnum.BULKHEAD_FULL.getValue()
+                    || status == ProtocolMessageStatusEnum.DEADLINE_EXCEEDED.getValue()) {
+                // 服务端过载、舱壁已满或超过截止时间（请求均未执行），以专用异常通知调用方，便于故障转移
+                ProtocolMessageStatusEnum statusEnum = ProtocolMessageStatusEnum.getEnumByValue(status);
+                future.completeExceptionally(new RpcRejectedException(statusEnum,
+                        rpcResponse == null ? statusEnum.getText() : rpcResponse.getMessage()));
+                return;
+            }
             future.complete(rpcResponse);
         } else {
-            // 这种情况可能是超时了，Future 已经被主线程的 remove 逻辑移除了
-            System.out.println("DEBUG: 收到响应，但 Map 中无对应 Future，可能已超时。ID=" + requestId);
+            // 这种情况可能是超时了，Future 已经被超时任务移除了
+            System.out.println("DEBUG: 收到响应，但待响应表中无对应 Future，可能已超时。ID=" + requestId);
         }
     }
 }
\ No newline at end of file
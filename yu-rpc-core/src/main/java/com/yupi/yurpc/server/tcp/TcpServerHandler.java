@@ -1,16 +1,31 @@
 package com.yupi.yurpc.server.tcp;
 
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.context.RpcContext;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.protocol.*;
-import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.InvokerRegistry;
+import com.yupi.yurpc.registry.MethodInvoker;
+import com.yupi.yurpc.registry.ServiceProvider;
+import com.yupi.yurpc.serializer.SerializerFactory;
+import com.yupi.yurpc.server.executor.BulkheadFullException;
+import com.yupi.yurpc.server.executor.PrioritizedTask;
+import com.yupi.yurpc.server.executor.ServiceExecutors;
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiter;
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiters;
 import io.vertx.core.Handler;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetSocket;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class TcpServerHandler implements Handler<NetSocket> {
@@ -22,8 +37,10 @@ public class TcpServerHandler implements Handler<NetSocket> {
      */
     @Override
     public void handle(NetSocket socket) {
-        // 1. 监听连接关闭
+        // 1. 登记连接（用于优雅停机时发送 GOAWAY），并监听连接关闭
+        VertxTcpServer.addConnection(socket);
         socket.closeHandler(v -> {
+            VertxTcpServer.removeConnection(socket);
             System.out.println("DEBUG: 服务端检测到连接断开");
         });
         // 1. 使用 Wrapper 包装原始的 Handler，自动解决粘包半包
@@ -36,43 +53,402 @@ public class TcpServerHandler implements Handler<NetSocket> {
             // 3.接受请求，解码
             ProtocolMessage<RpcRequest> protocolMessage;
             try {
-                protocolMessage = (ProtocolMessage<RpcRequest>) ProtocolMessageDecoder.decode(buffer);
+                protocolMessage = (ProtocolMessage<RpcRequest>) ProtocolMessageDecoder.decode(buffer,
+                        RpcApplication.getRpcConfig().getCompressConfig().getMaxDecompressedLength());
 //                System.out.println("DEBUG: 服务端解码出的 Request ID = " + protocolMessage.getHeader().getRequestId());
             } catch (IOException e) {
                 throw new RuntimeException("协议消息解码错误", e);
             }
+            ProtocolMessage.Header header = protocolMessage.getHeader();
+            // 发送过 v2 帧（含握手）的客户端能解析 GOAWAY，停机时才向其发送
+            if (header.getVersion() >= ProtocolConstant.PROTOCOL_VERSION_V2) {
+                VertxTcpServer.markGoAwayCapable(socket);
+            }
+            // 心跳：原样回复心跳帧，不进入业务处理
+            if (header.getType() == ProtocolMessageTypeEnum.HEART_BEAT.getKey()) {
+                doHeartBeatResponse(socket, header);
+                return;
+            }
+            // 握手：下发方法 id 表，之后该连接上的请求可只携带方法 id
+            if (header.getType() == ProtocolMessageTypeEnum.HANDSHAKE.getKey()) {
+                doHandshakeResponse(socket, header);
+                return;
+            }
             RpcRequest rpcRequest = protocolMessage.getBody();
+            applyHeaderAttachments(header, rpcRequest);
 
-            // 4.处理请求（通过反射调用）
-            RpcResponse rpcResponse = new RpcResponse();
-            try {
-                // 获取要调用的服务实现类，通过反射调用
-                Class<?> implClass = LocalRegistry.get(rpcRequest.getServiceName());
-                Method method = implClass.getMethod(rpcRequest.getMethodName(), rpcRequest.getParameterTypes());
-                Object result = method.invoke(implClass.newInstance(), rpcRequest.getArgs());
-                // 封装返回结果
-                rpcResponse.setData(result);
-                rpcResponse.setDataType(method.getReturnType());
-                rpcResponse.setMessage("ok");
-            } catch (Exception e) {
-                rpcResponse.setMessage(e.getMessage());
-                rpcResponse.setException(e);
+            // 4.在 event loop 上只查找预先解析好的调用器，业务调用交给业务执行器，避免慢方法阻塞同一 event loop 上的其他连接
+            String methodId = header.getAttachment(AttachmentKeys.METHOD_ID);
+            MethodInvoker invoker = methodId != null
+                    ? resolveById(Integer.parseInt(methodId), rpcRequest)
+                    : InvokerRegistry.get(rpcRequest.getServiceName(), rpcRequest.getMethodName(),
+                    rpcRequest.getParameterTypes());
+            if (invoker == null) {
+                RpcResponse rpcResponse = new RpcResponse();
+                rpcResponse.setMessage(methodId != null ? "未找到服务方法：id=" + methodId
+                        : "未找到服务方法：" + rpcRequest.getServiceName() + "#" + rpcRequest.getMethodName());
+                rpcResponse.setException(new NoSuchMethodException(rpcResponse.getMessage()));
+                doResponse(socket, header, rpcResponse);
+                return;
+            }
+            // 响应缓存与请求合并共用调用键（服务方法 + 序列化后的参数）
+            InvocationKey invocationKey = invoker.isCacheable() || invoker.isIdempotent()
+                    ? InvocationKey.of(invoker, rpcRequest, header.getSerializer())
+                    : null;
+            // 响应缓存命中：直接写出已序列化的响应体，跳过调用与序列化
+            if (invoker.isCacheable()) {
+                byte[] cachedBody = ResponseCaches.getIfPresent(invocationKey);
+                if (cachedBody != null) {
+                    doCachedResponse(socket, header, cachedBody, invoker.getQualifiedName());
+                    return;
+                }
+            }
+            InvocationKey cacheKey = invoker.isCacheable() ? invocationKey : null;
+            // 幂等方法的请求合并：相同请求正在执行时直接等待其结果，不占用限制器与执行器
+            RequestCoalescer.Flight flight = invoker.isIdempotent()
+                    ? RequestCoalescer.join(invocationKey, (response, status) -> doResponse(socket, header, response, status,
+                            invoker.getQualifiedName()))
+                    : null;
+            if (invoker.isIdempotent() && flight == null) {
+                return;
             }
-
-            // 5.编码响应并发送
-            // 构造响应消息头 (复用请求头的大部分信息，如 RequestId)
-            ProtocolMessage.Header header = protocolMessage.getHeader();
-            header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
-            ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
             try {
-                Buffer encode = ProtocolMessageEncoder.encode(responseProtocolMessage);
-                // 🔍 埋点 2
-//                System.out.println("【服务端】业务处理完毕，准备发送响应，长度：" + encode.length());
-                socket.write(encode);
-            } catch (IOException e) {
-                throw new RuntimeException("协议消息编码错误");
+                dispatch(socket, header, rpcRequest, invoker, flight, cacheKey);
+            } catch (Throwable t) {
+                // 受理前异常退出（如限制器、执行器创建失败，包括 Error）：结束合并，避免之后的相同请求一直等待
+                if (flight != null) {
+                    flight.abandon(t);
+                }
+                throw t;
             }
         });
         socket.handler(tcpBufferHandlerWrapper);
     }
+
+    /**
+     * 并发限制、计入在途请求并提交到业务执行器；名额不足或执行器已满时以拒绝状态响应
+     *
+     * @param socket
+     * @param header
+     * @param rpcRequest
+     * @param invoker    服务方法调用器
+     * @param flight     请求合并的 leader，不参与合并时为 null
+     * @param cacheKey   响应缓存键，不缓存时为 null
+     */
+    private void dispatch(NetSocket socket, ProtocolMessage.Header header, RpcRequest rpcRequest,
+                          MethodInvoker invoker, RequestCoalescer.Flight flight, InvocationKey cacheKey) {
+        // 自适应并发限制：超过上限的请求立即以 OVERLOADED 状态拒绝，调用方可转移到其他节点
+        ConcurrencyLimiter limiter = ConcurrencyLimiters.get(invoker.getImplClass(), invoker.getMethod());
+        Executor executor = ServiceExecutors.get(invoker.getImplClass(), invoker.getMethod());
+        if (!limiter.tryAcquire()) {
+            RpcMetrics.increment(MetricNames.SERVER_LIMITER_REJECTED);
+            doRejectResponse(socket, header, ProtocolMessageStatusEnum.OVERLOADED,
+                    "服务端并发已达上限 " + limiter.getLimit() + "，请求被拒绝", flight);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        // 计入在途请求，优雅停机时等待其全部响应后再关闭服务器
+        VertxTcpServer.requestStarted();
+        // 带优先级提交：threadPool、舱壁与 priority 执行器按优先级排队；priority 执行器队列满时挤出的低优先级请求以 OVERLOADED 拒绝
+        PrioritizedTask task = new PrioritizedTask(rpcRequest.getPriority(),
+                () -> {
+                    try {
+                        doInvoke(socket, header, rpcRequest, invoker, limiter, startNanos, flight, cacheKey);
+                    } catch (Throwable t) {
+                        // 得到结果前异常退出（包括 Error）：结束合并，避免之后的相同请求一直等待；已完成时 abandon 不生效
+                        if (flight != null) {
+                            flight.abandon(t);
+                        }
+                        throw t;
+                    }
+                },
+                () -> {
+                    limiter.onIgnore();
+                    VertxTcpServer.requestCompleted();
+                    doRejectResponse(socket, header, ProtocolMessageStatusEnum.OVERLOADED,
+                            "服务端过载，优先级 " + rpcRequest.getPriority() + " 的请求被更高优先级请求挤出", flight);
+                });
+        try {
+            executor.execute(task);
+        } catch (BulkheadFullException e) {
+            // 舱壁已满：只影响该服务（方法），其他服务不受影响
+            limiter.onIgnore();
+            VertxTcpServer.requestCompleted();
+            doRejectResponse(socket, header, ProtocolMessageStatusEnum.BULKHEAD_FULL, e.getMessage(), flight);
+        } catch (RejectedExecutionException e) {
+            limiter.onIgnore();
+            VertxTcpServer.requestCompleted();
+            RpcMetrics.increment(MetricNames.SERVER_EXECUTOR_REJECTED);
+            doRejectResponse(socket, header, ProtocolMessageStatusEnum.OVERLOADED, "服务端业务线程池已满，请求被拒绝",
+                    flight);
+        }
+    }
+
+    /**
+     * v2 请求的超时、优先级从消息头附件读取（v1 请求体与旧版本一致，不携带这两项，按不限时、默认优先级处理）
+     *
+     * @param header
+     * @param rpcRequest
+     */
+    private static void applyHeaderAttachments(ProtocolMessage.Header header, RpcRequest rpcRequest) {
+        String timeout = header.getAttachment(AttachmentKeys.TIMEOUT);
+        if (timeout != null) {
+            rpcRequest.setTimeoutMillis(Long.parseLong(timeout));
+        }
+        String priority = header.getAttachment(AttachmentKeys.PRIORITY);
+        if (priority != null) {
+            rpcRequest.setPriority(Integer.parseInt(priority));
+        }
+    }
+
+    /**
+     * 按握手协商的方法 id 查找调用器，并补全精简请求体中省略的服务名、方法名与参数类型
+     *
+     * @param methodId
+     * @param rpcRequest
+     * @return 未找到时返回 null
+     */
+    private static MethodInvoker resolveById(int methodId, RpcRequest rpcRequest) {
+        MethodInvoker invoker = InvokerRegistry.get(methodId);
+        if (invoker != null) {
+            Method method = invoker.getMethod();
+            rpcRequest.setServiceName(invoker.getServiceName());
+            rpcRequest.setMethodName(method.getName());
+            rpcRequest.setParameterTypes(method.getParameterTypes());
+        }
+        return invoker;
+    }
+
+    /**
+     * 调用服务方法，并编码响应发送（在业务执行器上执行）
+     *
+     * @param socket
+     * @param header
+     * @param rpcRequest
+     * @param invoker    服务方法调用器
+     * @param limiter    并发限制器，处理完成后归还名额并记录时延
+     * @param startNanos 占用名额的时间（即收到请求的时间）
+     * @param flight     请求合并的 leader，不参与合并时为 null
+     * @param cacheKey   响应缓存键，不缓存时为 null
+     */
+    private void doInvoke(NetSocket socket, ProtocolMessage.Header header, RpcRequest rpcRequest,
+                          MethodInvoker invoker, ConcurrencyLimiter limiter, long startNanos,
+                          RequestCoalescer.Flight flight, InvocationKey cacheKey) {
+        // 截止时间以收到请求的时刻为起点；排队期间已过期的请求调用方早已放弃，直接跳过执行
+        long timeoutMillis = rpcRequest.getTimeoutMillis();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (timeoutMillis > 0 && System.nanoTime() - deadlineNanos >= 0) {
+            // 排队时延同样是过载信号，计入限制器的时延采样
+            RpcMetrics.increment(MetricNames.SERVER_DEADLINE_EXCEEDED);
+            RpcResponse rpcResponse = new RpcResponse();
+            rpcResponse.setMessage("请求排队期间已超过截止时间 " + timeoutMillis + " ms，未执行");
+            complete(socket, header, rpcResponse, ProtocolMessageStatusEnum.DEADLINE_EXCEEDED, limiter, startNanos, flight,
+                    cacheKey, invoker.getQualifiedName());
+            return;
+        }
+        RpcContext context = RpcContext.getContext();
+        if (timeoutMillis > 0) {
+            // 方法内发起的嵌套 RPC 继承剩余时间
+            context.setDeadlineNanos(deadlineNanos);
+        }
+        // 嵌套 RPC 沿用本次请求的优先级，并透传请求携带的附件
+        context.setPriority(rpcRequest.getPriority());
+        context.setAttachments(header.getAttachments());
+        RpcResponse rpcResponse = new RpcResponse();
+        Method method = invoker.getMethod();
+        ServiceProvider provider = invoker.getProvider();
+        Object instance = null;
+        try {
+            instance = provider.acquire();
+            Object result = invoker.invoke(instance, rpcRequest.getArgs());
+            // 异步服务方法：等结果完成后再响应（并归还实例），不阻塞当前线程
+            if (result instanceof CompletableFuture) {
+                Object asyncInstance = instance;
+                instance = null;
+                ((CompletableFuture<?>) result).whenComplete((value, throwable) -> {
+                    provider.release(asyncInstance);
+                    if (throwable == null) {
+                        rpcResponse.setData(value);
+                        rpcResponse.setDataType(value == null ? method.getReturnType() : value.getClass());
+                        rpcResponse.setMessage("ok");
+                    } else {
+                        Exception e = throwable instanceof Exception ? (Exception) throwable : new RuntimeException(throwable);
+                        rpcResponse.setMessage(e.getMessage());
+                        rpcResponse.setException(e);
+                    }
+                    complete(socket, header, rpcResponse, ProtocolMessageStatusEnum.OK, limiter, startNanos, flight,
+                            cacheKey, invoker.getQualifiedName());
+                });
+                return;
+            }
+            // 封装返回结果
+            rpcResponse.setData(result);
+            rpcResponse.setDataType(method.getReturnType());
+            rpcResponse.setMessage("ok");
+        } catch (Throwable t) {
+            // 服务方法抛出的 Error（如 AssertionError）同样以异常响应，保证归还名额并结束在途请求
+            rpcResponse.setMessage(t.getMessage());
+            rpcResponse.setException(t instanceof Exception ? (Exception) t : new RuntimeException(t));
+        } finally {
+            RpcContext.removeContext();
+            provider.release(instance);
+        }
+
+        // 5.编码响应并发送（NetSocket.write 线程安全，可在业务线程调用）
+        complete(socket, header, rpcResponse, ProtocolMessageStatusEnum.OK, limiter, startNanos, flight, cacheKey,
+                invoker.getQualifiedName());
+    }
+
+    /**
+     * 结束一次已受理的请求：归还并发名额并记录时延，发送响应，减少在途请求数
+     *
+     * @param socket
+     * @param header
+     * @param rpcResponse
+     * @param status      响应状态
+     * @param limiter     并发限制器
+     * @param startNanos  占用名额的时间
+     * @param flight      请求合并的 leader，结果同时分发给合并的请求，可为 null
+     * @param cacheKey    响应缓存键，正常返回的结果序列化一次后同时写入缓存并发送，可为 null
+     * @param method      服务名#方法名
+     */
+    private void complete(NetSocket socket, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                          ProtocolMessageStatusEnum status, ConcurrencyLimiter limiter, long startNanos,
+                          RequestCoalescer.Flight flight, InvocationKey cacheKey, String method) {
+        limiter.onComplete(System.nanoTime() - startNanos);
+        try {
+            if (cacheKey != null && status == ProtocolMessageStatusEnum.OK && rpcResponse.getException() == null) {
+                doCachingResponse(socket, header, rpcResponse, cacheKey);
+            } else {
+                doResponse(socket, header, rpcResponse, status, method);
+            }
+        } finally {
+            VertxTcpServer.requestCompleted();
+            if (flight != null) {
+                flight.complete(rpcResponse, status);
+            }
+        }
+    }
+
+    /**
+     * 编码响应并发送
+     *
+     * @param socket
+     * @param header      请求头，复用其中的大部分信息，如 RequestId
+     * @param rpcResponse
+     */
+    private void doResponse(NetSocket socket, ProtocolMessage.Header header, RpcResponse rpcResponse) {
+        doResponse(socket, header, rpcResponse, ProtocolMessageStatusEnum.OK, null);
+    }
+
+    /**
+     * 拒绝请求（未执行），以指定的拒绝状态响应
+     *
+     * @param socket
+     * @param header
+     * @param status  拒绝状态（OVERLOADED / BULKHEAD_FULL）
+     * @param message 拒绝原因
+     * @param flight  请求合并的 leader，拒绝同样分发给合并的请求，可为 null
+     */
+    private void doRejectResponse(NetSocket socket, ProtocolMessage.Header header,
+                                  ProtocolMessageStatusEnum status, String message, RequestCoalescer.Flight flight) {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setMessage(message);
+        try {
+            doResponse(socket, header, rpcResponse, status, null);
+        } finally {
+            if (flight != null) {
+                flight.complete(rpcResponse, status);
+            }
+        }
+    }
+
+    /**
+     * 编码指定状态的响应并发送
+     *
+     * @param socket
+     * @param header
+     * @param rpcResponse
+     * @param status      响应状态
+     * @param method      服务名#方法名，用于按方法记录压缩指标，可为 null
+     */
+    private void doResponse(NetSocket socket, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                            ProtocolMessageStatusEnum status, String method) {
+        // 构造响应消息头 (复用请求头的大部分信息，如 RequestId、协议版本；附件不回传)
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setStatus((byte) status.getValue());
+        header.setAttachments(null);
+        ProtocolMessage<RpcResponse> responseProtocolMessage = new ProtocolMessage<>(header, rpcResponse);
+        try {
+            FrameWriter.write(socket, FrameWriter.encode(responseProtocolMessage, method));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误");
+        }
+    }
+
+    /**
+     * 序列化响应体，写入响应缓存并发送
+     *
+     * @param socket
+     * @param header
+     * @param rpcResponse 正常返回的响应
+     * @param cacheKey    响应缓存键
+     */
+    private void doCachingResponse(NetSocket socket, ProtocolMessage.Header header, RpcResponse rpcResponse,
+                                   InvocationKey cacheKey) {
+        ProtocolMessageSerializerEnum serializerEnum = ProtocolMessageSerializerEnum.getEnumByKey(header.getSerializer());
+        byte[] body;
+        try {
+            body = SerializerFactory.getInstance(serializerEnum.getValue()).serialize(rpcResponse);
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+        ResponseCaches.put(cacheKey, body);
+        doCachedResponse(socket, header, body, cacheKey.getInvoker().getQualifiedName());
+    }
+
+    /**
+     * 以已序列化的响应体发送正常响应
+     *
+     * @param socket
+     * @param header
+     * @param body   已序列化的响应体
+     * @param method 服务名#方法名
+     */
+    private void doCachedResponse(NetSocket socket, ProtocolMessage.Header header, byte[] body, String method) {
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setAttachments(null);
+        FrameWriter.write(socket, FrameWriter.encode(header, body, method));
+    }
+
+    /**
+     * 回复握手帧，消息体为当前的方法 id 表
+     *
+     * @param socket
+     * @param header 握手请求头
+     */
+    private void doHandshakeResponse(NetSocket socket, ProtocolMessage.Header header) {
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setAttachments(null);
+        try {
+            FrameWriter.write(socket, FrameWriter.encode(new ProtocolMessage<>(header, InvokerRegistry.methodTable())));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+    }
+
+    /**
+     * 回复心跳帧
+     *
+     * @param socket
+     * @param header 心跳请求头
+     */
+    private void doHeartBeatResponse(NetSocket socket, ProtocolMessage.Header header) {
+        try {
+            socket.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null)));
+        } catch (IOException e) {
+            throw new RuntimeException("协议消息编码错误", e);
+        }
+    }
 }
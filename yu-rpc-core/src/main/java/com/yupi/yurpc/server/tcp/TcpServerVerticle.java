@@ -0,0 +1,44 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.RpcApplication;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP 服务器 Verticle。
+ * 每个实例绑定一个 event loop 并各自创建一个 NetServer；
+ * 多个实例监听同一端口时，Vert.x 在实例之间轮询分配新连接，从而把连接均匀分散到多个 event loop。
+ */
+class TcpServerVerticle extends AbstractVerticle {
+
+    private final int port;
+
+    TcpServerVerticle(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        // 长时间收不到任何数据（包括客户端心跳）的连接由 Vert.x 自动关闭
+        long idleTimeoutMillis = RpcApplication.getRpcConfig().getHeartbeatConfig().getServerIdleTimeoutMillis();
+        NetServerOptions options = TransportOptions.apply(new NetServerOptions(),
+                        RpcApplication.getRpcConfig().getTransportConfig())
+                .setIdleTimeout((int) idleTimeoutMillis)
+                .setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+        NetServer server = vertx.createNetServer(options);
+        // 处理请求
+        server.connectHandler(new TcpServerHandler());
+        // 监听指定端口，监听结果作为 Verticle 的启动结果
+        server.listen(port, result -> {
+            if (result.succeeded()) {
+                startPromise.complete();
+            } else {
+                startPromise.fail(result.cause());
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.RpcConfig;
+import io.vertx.core.net.TCPSSLOptions;
+
+/**
+ * 把 {@link RpcConfig.TransportConfig} 应用到 Vert.x 的 TCP 选项（NetServerOptions / NetClientOptions）
+ */
+class TransportOptions {
+
+    private TransportOptions() {
+    }
+
+    /**
+     * 应用传输参数
+     *
+     * @param options         NetServerOptions 或 NetClientOptions
+     * @param transportConfig
+     * @return 传入的 options，便于链式调用
+     */
+    static <T extends TCPSSLOptions> T apply(T options, RpcConfig.TransportConfig transportConfig) {
+        options.setTcpNoDelay(transportConfig.isTcpNoDelay());
+        options.setTcpKeepAlive(transportConfig.isTcpKeepAlive());
+        // 以下选项仅在原生传输下生效，NIO 下 Vert.x 会忽略
+        options.setReusePort(transportConfig.isReusePort());
+        options.setTcpFastOpen(transportConfig.isTcpFastOpen());
+        options.setTcpQuickAck(transportConfig.isTcpQuickAck());
+        if (transportConfig.getSendBufferSize() > 0) {
+            options.setSendBufferSize(transportConfig.getSendBufferSize());
+        }
+        if (transportConfig.getReceiveBufferSize() > 0) {
+            options.setReceiveBufferSize(transportConfig.getReceiveBufferSize());
+        }
+        return options;
+    }
+}
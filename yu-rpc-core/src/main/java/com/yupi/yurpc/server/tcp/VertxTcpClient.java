@@ -1,35 +1,42 @@
 package com.yupi.yurpc.server.tcp;
 
-import cn.hutool.core.util.IdUtil;
 import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.context.RpcContext;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import com.yupi.yurpc.model.MethodTable;
 import com.yupi.yurpc.model.RpcRequest;
 import com.yupi.yurpc.model.RpcResponse;
 import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.protocol.AttachmentKeys;
 import com.yupi.yurpc.protocol.ProtocolConstant;
 import com.yupi.yurpc.protocol.ProtocolMessage;
-import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
 import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
 import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Timeout;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetClientOptions;
 import io.vertx.core.net.NetSocket;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Vert.x TCP 客户端。
  * 目标：
- * 1. 对同一服务地址复用长连接，避免每次请求都创建/销毁连接；
- * 2. 基于 requestId 进行请求-响应关联；
- * 3. 在写失败、超时、连接异常时主动淘汰坏连接，保证后续可重连。
+ * 1. 对同一服务地址复用长连接池（见 ConnectionPool），避免每次请求都创建/销毁连接；
+ * 2. 基于连接内顺序递增的 requestId 进行请求-响应关联，待响应表按连接隔离；
+ * 3. 在写失败、超时、连接异常、心跳超时时主动淘汰坏连接，保证后续可重连；
+ * 4. 同时提供同步（doRequest）与异步（doRequestAsync）两种调用方式。
  */
 @Slf4j
 public class VertxTcpClient {
@@ -40,190 +47,241 @@ public class VertxTcpClient {
      */
     private static final NetClient NET_CLIENT;
 
+    /**
+     * 连接池表：serviceAddress -> 该地址的连接池
+     * 例如：localhost:8080 -> ConnectionPool（内含 N 条 ConnectionHolder）
+     */
+    private static final ConcurrentHashMap<String, ConnectionPool> CONNECTION_POOL_MAP = new ConcurrentHashMap<>();
+
     static {
         Vertx vertx = RpcApplication.getVertx();
-        // 开启 TCP keepalive，降低空闲连接被网络设备回收后“半开”不可见的概率。
-        NetClientOptions options = new NetClientOptions().setTcpKeepAlive(true);
+        // 传输参数（TCP_NODELAY、keepalive 等）与服务端共用同一份配置。
+        // 建连超时交给 NetClient 控制，调用线程无需阻塞等待连接结果。
+        NetClientOptions options = TransportOptions.apply(new NetClientOptions(),
+                        RpcApplication.getRpcConfig().getTransportConfig())
+                .setConnectTimeout(RpcApplication.getRpcConfig().getConnectionPoolConfig().getConnectTimeoutMillis());
         NET_CLIENT = vertx.createNetClient(options);
+
+        // 心跳与空闲检查定时器：检查周期不超过 1 秒，保证心跳间隔与空闲 TTL 的精度
+        RpcConfig.HeartbeatConfig heartbeatConfig = RpcApplication.getRpcConfig().getHeartbeatConfig();
+        if (heartbeatConfig.isEnabled() && heartbeatConfig.getIntervalMillis() > 0) {
+            long checkPeriod = Math.min(1000L, heartbeatConfig.getIntervalMillis());
+            vertx.setPeriodic(checkPeriod, id -> {
+                for (ConnectionPool pool : CONNECTION_POOL_MAP.values()) {
+                    pool.checkHeartbeat(heartbeatConfig);
+                }
+            });
+        }
+    }
+
+    private VertxTcpClient() {
     }
 
     /**
-     * 连接缓存池：serviceAddress -> 连接持有者
-     * 例如：localhost:8080 -> ConnectionHolder
+     * 发送 RPC 请求并同步等待响应。
+     * 基于 {@link #doRequestAsync} 实现，仅在调用线程上阻塞等待结果；超时由时间轮负责触发。
      */
-    private static final ConcurrentHashMap<String, ConnectionHolder> KEY_CHANNEL_MAP = new ConcurrentHashMap<>();
+    public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo)
+            throws ExecutionException, InterruptedException {
+        try {
+            return doRequestAsync(rpcRequest, serviceMetaInfo).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException("RPC 调用超时", e.getCause());
+            }
+            throw e;
+        }
+    }
 
     /**
-     * 待响应请求表：requestId -> Future
-     * 发送请求后先放入该表，收到响应后由 TcpClientHandler 按 requestId 取出并完成。
+     * 发送 RPC 请求并异步返回响应。
+     * 编码、写出、响应匹配（TcpClientHandler）与超时控制全部基于回调完成，不占用调用线程等待。
      */
-    public static final ConcurrentHashMap<Long, CompletableFuture<RpcResponse>> PENDING_REQUEST_MAP = new ConcurrentHashMap<>();
-
-    private VertxTcpClient() {
-    }
+    public static CompletableFuture<RpcResponse> doRequestAsync(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) {
+        String serviceAddress = serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
 
-    private static class ConnectionHolder {
-        /**
-         * 实际 TCP 连接。
-         * 一次具体 TCP 连接本体，用于 write、收包 handler、关闭/异常回调。
-         * 简单说：NetClient 负责“建连接”，NetSocket 负责“用连接”。
-         */
-        private final NetSocket socket;
-
-        /**
-         * 连接是否可用。由 closeHandler / exceptionHandler 驱动变更。
-         */
-        private volatile boolean active = true;
-
-        /**
-         * 最后活跃时间（最近一次读写时间）。
-         * 当前阶段主要用于观测，后续可用于空闲连接回收策略。
-         */
-        private volatile long lastActiveTime = System.currentTimeMillis();
-
-        private ConnectionHolder(NetSocket socket) {
-            this.socket = socket;
+        // 0) 确定本次调用的超时：取配置超时与当前上下文剩余时间（嵌套调用）的较小值，并随请求发给服务端。
+        //    需在调用线程上读取上下文，acquire 之后的回调可能运行在 event loop 上。
+        long timeoutMillis = resolveTimeoutMillis();
+        if (timeoutMillis <= 0) {
+            return CompletableFuture.failedFuture(new TimeoutException("调用链已超过截止时间，放弃调用 "
+                    + rpcRequest.getServiceName() + "#" + rpcRequest.getMethodName()));
         }
+        rpcRequest.setTimeoutMillis(timeoutMillis);
+        // 按提供者支持的版本构造请求头；附件来自当前线程的上下文，同样需在调用线程上读取。
+        ProtocolMessage.Header header = newRequestHeader(rpcRequest, serviceMetaInfo);
 
-        private void touch() {
-            lastActiveTime = System.currentTimeMillis();
-        }
+        // 1) 从该地址的连接池中选择在途请求最少的连接并占用在途名额；池内无可用连接时异步建连（共享同一次连接尝试），
+        //    名额不足时按背压配置快速失败或有界等待。
+        ConnectionPool pool = getOrCreatePool(serviceAddress, serviceMetaInfo);
+        return pool.acquire().thenCompose(holder -> sendRequest(pool, holder, header, rpcRequest, serviceAddress));
     }
 
     /**
-     * 发送 RPC 请求并同步等待响应。
+     * 在指定连接上发送请求
      */
-    public static RpcResponse doRequest(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo)
-            throws ExecutionException, InterruptedException {
-        String serviceAddress = serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort();
-
-        // 1) 获取可复用连接；如果缓存不存在或已失活，则创建新连接。
-        ConnectionHolder holder = getOrCreateConnection(serviceAddress, serviceMetaInfo);
+    private static CompletableFuture<RpcResponse> sendRequest(ConnectionPool pool, ConnectionHolder holder,
+                                                              ProtocolMessage.Header header, RpcRequest rpcRequest,
+                                                              String serviceAddress) {
         NetSocket socket = holder.socket;
         holder.touch();
 
-        // 2) 构造协议消息，请求头内写入全局 requestId。
+        // 2) 构造协议消息，请求头内写入连接内递增的 requestId。
         ProtocolMessage<RpcRequest> protocolMessage = new ProtocolMessage<>();
-        ProtocolMessage.Header header = new ProtocolMessage.Header();
-        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
-        header.setVersion(ProtocolConstant.PROTOCOL_VERSION);
-        header.setSerializer((byte) ProtocolMessageSerializerEnum
-                .getEnumByValue(RpcApplication.getRpcConfig().getSerializer())
-                .getKey());
-        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
-
-        long requestId = IdUtil.getSnowflakeNextId();
+        long requestId = holder.nextRequestId();
         header.setRequestId(requestId);
         protocolMessage.setHeader(header);
-        protocolMessage.setBody(rpcRequest);
 
-        // 3) 先注册 future，再发送请求，避免响应先到导致 future 丢失。
+        // 3) 占用名额后立即登记归还：之后任何一步（登记 pending、注册超时、编码、写出）失败都只需失败 future，名额随之归还。
         CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
-        PENDING_REQUEST_MAP.put(requestId, responseFuture);
-
+        responseFuture.whenComplete((rpcResponse, throwable) -> pool.release(holder));
         try {
-            Buffer encodeBuffer = ProtocolMessageEncoder.encode(protocolMessage);
-            socket.write(encodeBuffer, writeResult -> {
-                if (!writeResult.succeeded()) {
-                    // 写失败通常意味着连接已经不可用，需清理 pending 并淘汰连接。
-                    PENDING_REQUEST_MAP.remove(requestId);
-                    responseFuture.completeExceptionally(writeResult.cause());
-                    evictAndClose(serviceAddress, holder);
-                    log.warn("TCP 写入失败，连接已淘汰：{}", serviceAddress, writeResult.cause());
-                } else {
-                    holder.touch();
+            // 4) 先注册 future，再发送请求，避免响应先到导致 future 丢失。
+            holder.pendingRequests.put(requestId, responseFuture);
+
+            // 5) 在共享时间轮上注册超时任务：到期仍未收到响应则只移除并失败本请求，连接上的其他请求不受影响；
+            //    响应先到则取消任务。连接只在写失败、心跳超时或关闭时淘汰。
+            long timeout = rpcRequest.getTimeoutMillis();
+            Timeout timeoutTask = RequestTimeoutScheduler.schedule(() -> {
+                if (holder.pendingRequests.remove(requestId, responseFuture)) {
+                    RpcMetrics.increment(MetricNames.CLIENT_REQUEST_TIMEOUT);
+                    responseFuture.completeExceptionally(new TimeoutException("RPC 调用超时，requestId=" + requestId));
                 }
-            });
-        } catch (IOException e) {
-            PENDING_REQUEST_MAP.remove(requestId);
-            throw new RuntimeException("协议消息编码错误", e);
-        }
+            }, timeout);
+            responseFuture.whenComplete((rpcResponse, throwable) -> timeoutTask.cancel());
 
-        try {
-            Long timeout = RpcApplication.getRpcConfig().getRegistryConfig().getTimeout();
-            if (timeout == null || timeout <= 0) {
-                // 超时未配置时使用兜底值，避免永久阻塞。
-                timeout = 3000L;
+            // 6) 编码并写出；发送前任何异常（编码、序列化、写入）都立即移除 pending 并失败本请求。
+            protocolMessage.setBody(compactRequest(pool, holder, header, rpcRequest));
+            ByteBuf encodeBuffer = FrameWriter.encode(protocolMessage,
+                    rpcRequest.getServiceName() + "#" + rpcRequest.getMethodName());
+            WriteBatcher writeBatcher = holder.writeBatcher;
+            if (writeBatcher != null) {
+                // 批量写：交给连接的 event loop 合并刷写，写失败时由 WriteBatcher 淘汰连接
+                writeBatcher.write(encodeBuffer);
+                holder.touch();
+            } else {
+                FrameWriter.write(socket, encodeBuffer, writeResult -> {
+                    if (!writeResult.succeeded()) {
+                        // 写失败通常意味着连接已经不可用，需清理 pending 并淘汰连接。
+                        holder.pendingRequests.remove(requestId);
+                        responseFuture.completeExceptionally(writeResult.cause());
+                        pool.evictAndClose(holder);
+                        log.warn("TCP 写入失败，连接已淘汰：{}", serviceAddress, writeResult.cause());
+                    } else {
+                        holder.touch();
+                    }
+                });
             }
-            return responseFuture.get(timeout, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException e) {
-            // 超时后主动淘汰并关闭当前连接，避免复用“半死连接”。
-            PENDING_REQUEST_MAP.remove(requestId);
-            evictAndClose(serviceAddress, holder);
-            throw new RuntimeException("RPC 调用超时", e);
+        } catch (Exception e) {
+            holder.pendingRequests.remove(requestId, responseFuture);
+            responseFuture.completeExceptionally(e instanceof IOException
+                    ? new RuntimeException("协议消息编码错误", e) : e);
         }
+        return responseFuture;
     }
 
     /**
-     * 获取或创建连接（双重检查 + 同步串行创建）。
+     * 连接已完成握手且目标方法有 id 时，在附件中携带方法 id，返回省略服务名、方法名与参数类型的精简请求体；
+     * 否则（首次使用该连接时顺带发起握手）返回原请求。
+     * JSON 序列化器需要参数类型才能还原参数，不使用精简请求体。
+     * 不修改原请求：重试时原请求可能发往不支持 v2 的节点。
      */
-    private static ConnectionHolder getOrCreateConnection(String serviceAddress, ServiceMetaInfo serviceMetaInfo) {
-        ConnectionHolder holder = KEY_CHANNEL_MAP.get(serviceAddress);
-        if (holder != null && holder.active) {
-//            log.debug("复用缓存连接：{}", serviceAddress);
-            return holder;
+    private static RpcRequest compactRequest(ConnectionPool pool, ConnectionHolder holder,
+                                             ProtocolMessage.Header header, RpcRequest rpcRequest) {
+        if (header.getVersion() < ProtocolConstant.PROTOCOL_VERSION_V2
+                || header.getSerializer() == ProtocolMessageSerializerEnum.JSON.getKey()) {
+            return rpcRequest;
         }
+        Map<String, Integer> methodIds = holder.methodIds;
+        if (methodIds == null) {
+            pool.handshake(holder);
+            return rpcRequest;
+        }
+        Integer methodId = methodIds.get(MethodTable.signature(rpcRequest.getServiceName(),
+                rpcRequest.getMethodName(), rpcRequest.getParameterTypes()));
+        if (methodId == null) {
+            return rpcRequest;
+        }
+        header.getAttachments().put(AttachmentKeys.METHOD_ID, String.valueOf(methodId));
+        return RpcRequest.builder()
+                .args(rpcRequest.getArgs())
+                .timeoutMillis(rpcRequest.getTimeoutMillis())
+                .priority(rpcRequest.getPriority())
+                .build();
+    }
 
-        synchronized (VertxTcpClient.class) {
-            holder = KEY_CHANNEL_MAP.get(serviceAddress);
-            if (holder != null && holder.active) {
-                log.debug("复用缓存连接（双检命中）：{}", serviceAddress);
-                return holder;
-            }
-
-            // 未命中，创建新连接
-            CompletableFuture<ConnectionHolder> connectFuture = new CompletableFuture<>();
-
-            NET_CLIENT.connect(serviceMetaInfo.getServicePort(), serviceMetaInfo.getServiceHost(), result -> {
-                if (!result.succeeded()) {
-                    connectFuture.completeExceptionally(
-                            new RuntimeException("TCP 连接失败", result.cause()));
-                    return;
-                }
-
-                NetSocket socket = result.result();
-                ConnectionHolder newHolder = new ConnectionHolder(socket);
-
-                socket.handler(new TcpBufferHandlerWrapper(new TcpClientHandler()));
-                socket.closeHandler(v -> {
-                    newHolder.active = false;
-                    KEY_CHANNEL_MAP.remove(serviceAddress, newHolder);
-                    log.info("TCP 连接关闭：{}", serviceAddress);
-                });
-                socket.exceptionHandler(throwable -> {
-                    newHolder.active = false;
-                    KEY_CHANNEL_MAP.remove(serviceAddress, newHolder);
-                    log.warn("TCP 连接异常，已淘汰：{}", serviceAddress, throwable);
-                });
-
-                connectFuture.complete(newHolder);
-            });
-
-            try {
-                ConnectionHolder newHolder = connectFuture.get(3, TimeUnit.SECONDS);
-                KEY_CHANNEL_MAP.put(serviceAddress, newHolder);
-                log.info("创建新的 TCP 连接成功：{}", serviceAddress);
-                return newHolder;
-            } catch (Exception e) {
-                throw new RuntimeException("创建 TCP 连接超时或失败", e);
+    /**
+     * 构造请求头（不含 requestId）。
+     * 提供者支持 v2 时使用 v2 消息头，并把超时、优先级与上下文中的附件写入附件，服务端无需反序列化请求体即可读取；
+     * 未声明协议版本的（旧）提供者只支持 v1，不发送附件。
+     */
+    private static ProtocolMessage.Header newRequestHeader(RpcRequest rpcRequest, ServiceMetaInfo serviceMetaInfo) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum
+                .getEnumByValue(RpcApplication.getRpcConfig().getSerializer())
+                .getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        Integer providerVersion = serviceMetaInfo.getProtocolVersion();
+        if (providerVersion == null || providerVersion < ProtocolConstant.PROTOCOL_VERSION_V2) {
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V1);
+            return header;
+        }
+        header.setVersion((byte) Math.min(providerVersion, ProtocolConstant.PROTOCOL_VERSION));
+        // 上下文中的保留附件（如上游请求的方法 id）只属于上游调用，不透传
+        Map<String, String> attachments = new HashMap<>();
+        for (Map.Entry<String, String> entry : RpcContext.getContext().getAttachments().entrySet()) {
+            if (!AttachmentKeys.isReserved(entry.getKey())) {
+                attachments.put(entry.getKey(), entry.getValue());
             }
         }
+        attachments.put(AttachmentKeys.TIMEOUT, String.valueOf(rpcRequest.getTimeoutMillis()));
+        attachments.put(AttachmentKeys.PRIORITY, String.valueOf(rpcRequest.getPriority()));
+        header.setAttachments(attachments);
+        return header;
     }
 
     /**
-     * 淘汰并关闭连接。
-     * 使用 remove(key, value) 精确移除，避免误删并发下刚创建的新连接。
+     * 计算本次调用的超时时间
+     *
+     * @return 配置超时与上下文剩余时间中的较小值，<= 0 表示调用链已超过截止时间
      */
-    private static void evictAndClose(String serviceAddress, ConnectionHolder holder) {
-        if (holder == null) {
-            return;
+    private static long resolveTimeoutMillis() {
+        Long timeout = RpcApplication.getRpcConfig().getRegistryConfig().getTimeout();
+        if (timeout == null || timeout <= 0) {
+            // 超时未配置时使用兜底值，避免永久挂起。
+            timeout = 3000L;
         }
-        holder.active = false;
-        KEY_CHANNEL_MAP.remove(serviceAddress, holder);
-        try {
-            holder.socket.close();
-        } catch (Exception e) {
-            log.warn("关闭 TCP 连接失败：{}", serviceAddress, e);
+        return Math.min(timeout, RpcContext.getContext().getRemainingMillis());
+    }
+
+    /**
+     * 提供者是否处于排空中（最近收到其 GOAWAY），负载均衡时应优先跳过
+     */
+    public static boolean isDraining(ServiceMetaInfo serviceMetaInfo) {
+        ConnectionPool pool = CONNECTION_POOL_MAP.get(
+                serviceMetaInfo.getServiceHost() + ":" + serviceMetaInfo.getServicePort());
+        return pool != null && pool.isDraining();
+    }
+
+    /**
+     * 获取或创建某个服务地址的连接池（仅创建池对象，不发起连接）
+     */
+    private static ConnectionPool getOrCreatePool(String serviceAddress, ServiceMetaInfo serviceMetaInfo) {
+        ConnectionPool pool = CONNECTION_POOL_MAP.get(serviceAddress);
+        if (pool == null) {
+            pool = CONNECTION_POOL_MAP.computeIfAbsent(serviceAddress, key -> {
+                ConnectionPool newPool = new ConnectionPool(key,
+                        serviceMetaInfo.getServiceHost(), serviceMetaInfo.getServicePort(), NET_CLIENT);
+                if (RpcApplication.getRpcConfig().getConnectionPoolConfig().isWarmUp()) {
+                    newPool.warmUp();
+                }
+                return newPool;
+            });
         }
+        // 提供者可能原地升级，按本次调用的注册信息刷新是否支持心跳
+        Integer providerVersion = serviceMetaInfo.getProtocolVersion();
+        pool.heartbeatSupported = providerVersion != null && providerVersion >= ProtocolConstant.PROTOCOL_VERSION_V2;
+        return pool;
     }
 }
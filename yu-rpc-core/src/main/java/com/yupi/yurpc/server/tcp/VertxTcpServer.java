@@ -1,17 +1,51 @@
 package com.yupi.yurpc.server.tcp;
 
 import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
 import com.yupi.yurpc.server.HttpServer;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
-import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
- * Vert.x TCP 服务器
+ * Vert.x TCP 服务器。
+ * 以 Verticle 形式部署 serverInstances 个实例（默认等于 CPU 核数），连接在各实例的 event loop 之间均匀分布。
+ * 停机时先向支持 GOAWAY 的连接发送 GOAWAY，等待在途请求处理完成后再关闭服务器（见 {@link #shutdownGracefully}）。
  */
 @Slf4j
 public class VertxTcpServer implements HttpServer {
 
+    /**
+     * 当前已建立的连接 -> 是否支持 GOAWAY（已握手或发送过 v2 帧），停机时只向支持的连接发送 GOAWAY
+     */
+    private static final Map<NetSocket, Boolean> CONNECTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 已接收、尚未响应的请求数
+     */
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    /**
+     * 是否正在停机排空
+     */
+    private static volatile boolean draining = false;
+
+    /**
+     * Verticle 部署 ID，停机时据此卸载（同时关闭各实例的 NetServer 及其连接）
+     */
+    private static volatile String deploymentId;
+
     /**
      * 启动服务器
      *
@@ -21,17 +55,107 @@ public class VertxTcpServer implements HttpServer {
     public void doStart(int port) {
         // 复用 Vert.x 实例
         Vertx vertx = RpcApplication.getVertx();
-        // 创建 TCP 服务器
-        NetServer server = vertx.createNetServer();
-        // 处理请求
-        server.connectHandler(new TcpServerHandler());
-        // 启动 TCP 服务器并监听指定端口
-        server.listen(port, result -> {
+        int instances = Math.max(1, RpcApplication.getRpcConfig().getServerInstances());
+        DeploymentOptions deploymentOptions = new DeploymentOptions().setInstances(instances);
+        // 部署 TCP 服务器 Verticle，每个实例各自监听同一端口
+        vertx.deployVerticle(() -> new TcpServerVerticle(port), deploymentOptions, result -> {
             if (result.succeeded()) {
-                System.out.println("TCP server is now listening on port " + port);
+                deploymentId = result.result();
+                System.out.println("TCP server is now listening on port " + port + " with " + instances + " instances");
             } else {
                 System.out.println("Failed to start TCP server: " + result.cause());
             }
         });
     }
+
+    /**
+     * 优雅停机：
+     * 1. 向支持 GOAWAY 的连接发送 GOAWAY，客户端收到后不再在该连接上发送新请求（旧版本客户端的连接继续处理，直到关闭）；
+     * 2. 等待在途请求处理完成，最长等待 timeoutMillis；
+     * 3. 卸载 Verticle，关闭服务器及剩余连接。
+     * 服务端未启动时直接返回。调用前应先从注册中心注销本节点。
+     *
+     * @param timeoutMillis 等待在途请求完成的最长时间
+     */
+    public static void shutdownGracefully(long timeoutMillis) {
+        String id = deploymentId;
+        if (id == null) {
+            return;
+        }
+        draining = true;
+        CONNECTIONS.forEach((socket, goAwayCapable) -> {
+            if (goAwayCapable) {
+                sendGoAway(socket);
+            }
+        });
+        log.info("TCP 服务器开始排空，连接数 {}，在途请求数 {}", CONNECTIONS.size(), IN_FLIGHT.get());
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            while (IN_FLIGHT.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (IN_FLIGHT.get() > 0) {
+            log.warn("TCP 服务器排空超时，仍有 {} 个在途请求，强制关闭", IN_FLIGHT.get());
+        }
+        try {
+            RpcApplication.getVertx().undeploy(id).toCompletionStage().toCompletableFuture()
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            log.info("TCP 服务器已关闭");
+        } catch (Exception e) {
+            log.warn("TCP 服务器关闭失败", e);
+        }
+        deploymentId = null;
+    }
+
+    /**
+     * 登记新连接（尚不知道客户端版本，按不支持 GOAWAY 处理）
+     */
+    static void addConnection(NetSocket socket) {
+        CONNECTIONS.put(socket, Boolean.FALSE);
+    }
+
+    /**
+     * 标记连接支持 GOAWAY（收到握手或 v2 帧时调用）；正在排空时立即发送 GOAWAY
+     */
+    static void markGoAwayCapable(NetSocket socket) {
+        if (Boolean.FALSE.equals(CONNECTIONS.get(socket)) && CONNECTIONS.replace(socket, Boolean.FALSE, Boolean.TRUE)
+                && draining) {
+            sendGoAway(socket);
+        }
+    }
+
+    static void removeConnection(NetSocket socket) {
+        CONNECTIONS.remove(socket);
+    }
+
+    static void requestStarted() {
+        IN_FLIGHT.incrementAndGet();
+    }
+
+    static void requestCompleted() {
+        IN_FLIGHT.decrementAndGet();
+    }
+
+    /**
+     * 发送 GOAWAY 帧（requestId 固定为 0，无消息体）。
+     * 只发给支持 GOAWAY 的连接：旧版本客户端按消息头的 bodyLength 定长读取消息体，bodyLength 为 0 会破坏其分帧，
+     * 导致排空期间在途请求的响应丢失。
+     */
+    private static void sendGoAway(NetSocket socket) {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V1);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum
+                .getEnumByValue(RpcApplication.getRpcConfig().getSerializer())
+                .getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.GO_AWAY.getKey());
+        try {
+            socket.write(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, null)));
+        } catch (IOException e) {
+            log.warn("GOAWAY 消息编码错误", e);
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.config.RpcConfig;
+import com.yupi.yurpc.metrics.MetricNames;
+import com.yupi.yurpc.metrics.RpcMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.net.NetSocket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 连接级批量写（写合并）。
+ * 业务线程只把编码好的帧放入队列，由连接所属的 event loop 统一刷写：
+ * 同一 tick（或 flushIntervalMillis 窗口）内到达的帧合并为一次 socket.write，
+ * 单批次受帧数和字节数上限约束，从而把“每个请求一次系统调用 + 一次写回调”降为“每批一次”。
+ * 多帧以复合缓冲区的组件合并，不拷贝帧数据。
+ */
+class WriteBatcher {
+
+    private final NetSocket socket;
+
+    /**
+     * 连接绑定的 event loop 上下文，刷写始终在该上下文执行
+     */
+    private final Context context;
+
+    private final RpcConfig.WriteBatchConfig writeBatchConfig;
+
+    /**
+     * 写失败回调（通常是淘汰连接）
+     */
+    private final Handler<Throwable> failureHandler;
+
+    /**
+     * 待刷写帧队列（多生产者、单消费者）
+     */
+    private final Queue<ByteBuf> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 是否已调度刷写任务，保证同一时刻最多一个待执行的刷写任务
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    WriteBatcher(NetSocket socket, Context context, RpcConfig.WriteBatchConfig writeBatchConfig,
+                 Handler<Throwable> failureHandler) {
+        this.socket = socket;
+        this.context = context;
+        this.writeBatchConfig = writeBatchConfig;
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * 提交一帧，等待下一次刷写
+     *
+     * @param frame 完整的协议帧（池化缓冲区，所有权转交给批量写）
+     */
+    void write(ByteBuf frame) {
+        queue.offer(frame);
+        if (flushScheduled.compareAndSet(false, true)) {
+            long flushIntervalMillis = writeBatchConfig.getFlushIntervalMillis();
+            if (flushIntervalMillis > 0) {
+                // 定时器在当前上下文创建，到期回调也在该上下文执行
+                context.runOnContext(v -> context.owner().setTimer(flushIntervalMillis, id -> flush()));
+            } else {
+                context.runOnContext(v -> flush());
+            }
+        }
+    }
+
+    /**
+     * 在 event loop 上刷写队列中所有帧，按上限切分为若干批
+     */
+    private void flush() {
+        // 先复位标记，刷写过程中新到达的帧会触发下一轮刷写，不会遗漏
+        flushScheduled.set(false);
+        int maxFrames = writeBatchConfig.getMaxFrames();
+        int maxBytes = writeBatchConfig.getMaxBytes();
+        ByteBuf batch = null;
+        int frames = 0;
+        ByteBuf frame;
+        while ((frame = queue.poll()) != null) {
+            if (batch == null) {
+                batch = frame;
+            } else {
+                if (frames == 1) {
+                    // 出现第二帧时才分配复合缓冲区，单帧批次直接写出
+                    CompositeByteBuf composite = FrameWriter.compositeBuffer(maxFrames);
+                    composite.addComponent(true, batch);
+                    batch = composite;
+                }
+                ((CompositeByteBuf) batch).addComponent(true, frame);
+            }
+            frames++;
+            if (frames >= maxFrames || batch.readableBytes() >= maxBytes) {
+                writeBatch(batch, frames);
+                batch = null;
+                frames = 0;
+            }
+        }
+        if (batch != null) {
+            writeBatch(batch, frames);
+        }
+    }
+
+    private void writeBatch(ByteBuf batch, int frames) {
+        RpcMetrics.increment(MetricNames.CLIENT_WRITE_BATCHES);
+        RpcMetrics.add(MetricNames.CLIENT_WRITE_FRAMES, frames);
+        FrameWriter.write(socket, batch, writeResult -> {
+            if (!writeResult.succeeded()) {
+                failureHandler.handle(writeResult.cause());
+            }
+        });
+    }
+}
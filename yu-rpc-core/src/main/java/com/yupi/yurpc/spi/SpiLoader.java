@@ -1,6 +1,7 @@
 package com.yupi.yurpc.spi;
 
 import cn.hutool.core.io.resource.ResourceUtil;
+import com.yupi.yurpc.compress.Compressor;
 import com.yupi.yurpc.serializer.Serializer;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,9 +49,9 @@ public class SpiLoader {
     private static final String[] SCAN_DIRS = new String[]{RPC_SYSTEM_SPI_DIR, RPC_CUSTOM_SPI_DIR};
 
     /**
-     * 动态加载的类列表（目前只加载 Serializer，后续可以加其他接口）
+     * 动态加载的类列表（目前加载 Serializer、Compressor，后续可以加其他接口）
      */
-    private static final List<Class<?>> LOAD_CLASS_LIST = Arrays.asList(Serializer.class);
+    private static final List<Class<?>> LOAD_CLASS_LIST = Arrays.asList(Serializer.class, Compressor.class);
 
     /**
      * 加载所有类型 (入口方法)
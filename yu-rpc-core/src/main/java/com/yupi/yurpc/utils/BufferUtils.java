@@ -0,0 +1,37 @@
+package com.yupi.yurpc.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Vert.x Buffer 与 Netty ByteBuf 互转工具类。
+ * 编解码直接读写底层 ByteBuf 以避免拷贝；Vert.x 4 中对应的方法已标记废弃（5 改为 BufferInternal，4.5 尚未提供），
+ * 统一在这里调用并限定废弃警告的抑制范围，升级 Vert.x 时只需修改本类。
+ */
+public class BufferUtils {
+
+    private BufferUtils() {
+    }
+
+    /**
+     * 获取 Buffer 底层的 ByteBuf（共享内容，不拷贝）
+     *
+     * @param buffer
+     * @return
+     */
+    @SuppressWarnings("deprecation")
+    public static ByteBuf toByteBuf(Buffer buffer) {
+        return buffer.getByteBuf();
+    }
+
+    /**
+     * 以 ByteBuf 构造 Buffer（共享内容，不拷贝）
+     *
+     * @param byteBuf
+     * @return
+     */
+    @SuppressWarnings("deprecation")
+    public static Buffer toBuffer(ByteBuf byteBuf) {
+        return Buffer.buffer(byteBuf);
+    }
+}
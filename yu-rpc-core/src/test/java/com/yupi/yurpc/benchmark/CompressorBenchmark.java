@@ -0,0 +1,85 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.compress.Compressor;
+import com.yupi.yurpc.compress.CompressorFactory;
+import com.yupi.yurpc.compress.CompressorKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息体压缩基准：LZ4 与 DEFLATE 在列表型响应（重复字段名、相近取值）上的压缩、解压耗时。
+ * 运行方式：执行 main 方法（需先编译测试代码以生成 JMH 元数据），压缩率在 setup 时打印。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressorBenchmark {
+
+    @Param({CompressorKeys.LZ4, CompressorKeys.DEFLATE})
+    private String compressorKey;
+
+    /**
+     * 列表元素个数
+     */
+    @Param({"100", "2000"})
+    private int records;
+
+    private Compressor compressor;
+
+    private byte[] original;
+
+    private byte[] compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < records; i++) {
+            builder.append("{\"id\":").append(100000 + i)
+                    .append(",\"name\":\"user-").append(random.nextInt(1000))
+                    .append("\",\"zone\":\"cn-east-").append(random.nextInt(4))
+                    .append("\",\"score\":").append(random.nextInt(10000)).append("},");
+        }
+        original = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        compressor = CompressorFactory.getInstance(compressorKey);
+        compressed = compressor.compress(original);
+        System.out.printf("%n%s: %d -> %d bytes (%d%%)%n", compressorKey, original.length, compressed.length,
+                compressed.length * 100L / original.length);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return compressor.compress(original);
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        return compressor.decompress(compressed, original.length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompressorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协议帧编码基准：序列化为字节数组再拷贝进堆 Buffer，对比直接序列化进池化堆内存、池化直接内存。
+ * 运行方式：执行 main 方法（需先编译测试代码以生成 JMH 元数据），附带 GC 分析器输出每次编码的分配字节数。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncoderBenchmark {
+
+    /**
+     * 响应数据长度（字符数）
+     */
+    @Param({"64", "4096"})
+    private int payloadSize;
+
+    private final ByteBufAllocator heapAllocator = new PooledByteBufAllocator(false);
+
+    private final ByteBufAllocator directAllocator = PooledByteBufAllocator.DEFAULT;
+
+    private ProtocolMessage<RpcResponse> message;
+
+    @Setup
+    public void setup() {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V1);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        header.setStatus((byte) ProtocolMessageStatusEnum.OK.getValue());
+        header.setRequestId(1L);
+        RpcResponse response = new RpcResponse();
+        response.setData("x".repeat(payloadSize));
+        response.setDataType(String.class);
+        message = new ProtocolMessage<>(header, response);
+    }
+
+    /**
+     * 原有路径：序列化为 byte[]，再拷贝进新分配的堆 Buffer
+     */
+    @Benchmark
+    public Object heapCopy() throws IOException {
+        return ProtocolMessageEncoder.encode(message);
+    }
+
+    /**
+     * 新路径：直接序列化进池化堆内存，回填 bodyLength
+     */
+    @Benchmark
+    public int pooledHeap() throws IOException {
+        return encodeAndRelease(heapAllocator);
+    }
+
+    /**
+     * 新路径：直接序列化进池化直接内存，回填 bodyLength
+     */
+    @Benchmark
+    public int pooledDirect() throws IOException {
+        return encodeAndRelease(directAllocator);
+    }
+
+    private int encodeAndRelease(ByteBufAllocator allocator) throws IOException {
+        ByteBuf byteBuf = ProtocolMessageEncoder.encode(message, allocator);
+        int length = byteBuf.readableBytes();
+        // 模拟 Netty 写出后释放
+        byteBuf.release();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
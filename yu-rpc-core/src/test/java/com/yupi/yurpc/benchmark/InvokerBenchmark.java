@@ -0,0 +1,81 @@
+package com.yupi.yurpc.benchmark;
+
+import com.yupi.yurpc.registry.InvokerRegistry;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.MethodInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务端方法分发基准：反射查找 + Method.invoke 对比预解析的 MethodHandle 调用器。
+ * 运行方式：执行 main 方法（需先编译测试代码以生成 JMH 元数据）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvokerBenchmark {
+
+    public interface EchoService {
+        String echo(String value);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+        @Override
+        public String echo(String value) {
+            return value;
+        }
+    }
+
+    private static final String SERVICE_NAME = EchoService.class.getName();
+
+    private final Class<?>[] parameterTypes = {String.class};
+
+    private final Object[] args = {"yu-rpc"};
+
+    private final Object target = new EchoServiceImpl();
+
+    @Setup
+    public void setup() {
+        LocalRegistry.register(SERVICE_NAME, EchoServiceImpl.class);
+    }
+
+    /**
+     * 原有路径：每次请求都查找实现类、反射查找方法并 Method.invoke
+     */
+    @Benchmark
+    public Object reflective() throws Exception {
+        Class<?> implClass = LocalRegistry.get(SERVICE_NAME);
+        Method method = implClass.getMethod("echo", parameterTypes);
+        return method.invoke(target, args);
+    }
+
+    /**
+     * 新路径：按服务名、方法名查表后直接调用 MethodHandle
+     */
+    @Benchmark
+    public Object methodHandle() throws Exception {
+        MethodInvoker invoker = InvokerRegistry.get(SERVICE_NAME, "echo", parameterTypes);
+        return invoker.invoke(target, args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InvokerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
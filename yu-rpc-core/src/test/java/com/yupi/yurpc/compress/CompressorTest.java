@@ -0,0 +1,80 @@
+package com.yupi.yurpc.compress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 压缩器测试
+ */
+public class CompressorTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(42);
+        byte[] randomBytes = new byte[100000];
+        random.nextBytes(randomBytes);
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            records.append("{\"id\":").append(i).append(",\"name\":\"user-").append(random.nextInt(100)).append("\"},");
+        }
+        byte[][] samples = {
+                new byte[0],
+                "tiny".getBytes(StandardCharsets.UTF_8),
+                // 长串重复字节：重叠匹配与超长匹配长度
+                "a".repeat(70000).getBytes(StandardCharsets.UTF_8),
+                // 超长字面量
+                randomBytes,
+                records.toString().getBytes(StandardCharsets.UTF_8)
+        };
+        for (String key : new String[]{CompressorKeys.LZ4, CompressorKeys.DEFLATE}) {
+            Compressor compressor = CompressorFactory.getInstance(key);
+            for (byte[] sample : samples) {
+                byte[] compressed = compressor.compress(sample);
+                Assert.assertArrayEquals(key, sample, compressor.decompress(compressed, sample.length));
+            }
+            byte[] text = samples[4];
+            Assert.assertTrue(key, compressor.compress(text).length < text.length / 3);
+        }
+    }
+
+    @Test
+    public void rejectCorruptData() throws IOException {
+        byte[] data = "abcdefgh".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        for (String key : new String[]{CompressorKeys.LZ4, CompressorKeys.DEFLATE}) {
+            Compressor compressor = CompressorFactory.getInstance(key);
+            byte[] compressed = compressor.compress(data);
+            assertThrows(compressor, Arrays.copyOf(compressed, compressed.length / 2), data.length);
+            assertThrows(compressor, compressed, data.length + 1);
+        }
+        // LZ4 匹配偏移为 0：1 个字面量 'a' + 偏移 0 + 匹配长度 4，再接 5 个字面量
+        byte[] zeroOffset = {0x10, 'a', 0, 0, 0x50, 'b', 'c', 'd', 'e', 'f'};
+        assertThrows(CompressorFactory.getInstance(CompressorKeys.LZ4), zeroOffset, 10);
+    }
+
+    @Test
+    public void decompressDirectBuffer() throws IOException {
+        byte[] data = "abcdefgh".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        for (String key : new String[]{CompressorKeys.LZ4, CompressorKeys.DEFLATE}) {
+            Compressor compressor = CompressorFactory.getInstance(key);
+            byte[] compressed = compressor.compress(data);
+            ByteBuffer direct = ByteBuffer.allocateDirect(compressed.length);
+            direct.put(compressed).flip();
+            Assert.assertArrayEquals(key, data, compressor.decompress(direct, data.length));
+        }
+    }
+
+    private static void assertThrows(Compressor compressor, byte[] data, int originalLength) {
+        try {
+            compressor.decompress(data, originalLength);
+            Assert.fail("损坏的数据应解压失败");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -2,12 +2,22 @@ package com.yupi.yurpc.protocol;
 
 import cn.hutool.core.util.IdUtil;
 import com.yupi.yurpc.constant.RpcConstant;
+import com.yupi.yurpc.model.MethodTable;
 import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.registry.InvokerRegistry;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.registry.MethodInvoker;
+import com.yupi.yurpc.utils.BufferUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.vertx.core.buffer.Buffer;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ProtocolMessageTest {
     @Test
@@ -36,4 +46,134 @@ public class ProtocolMessageTest {
         ProtocolMessage<?> message = ProtocolMessageDecoder.decode(encodeBuffer);
         Assert.assertNotNull(message);
     }
+
+    @Test
+    public void testV2Attachments() throws IOException {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V2);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.REQUEST.getKey());
+        header.setRequestId(300L);
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(AttachmentKeys.TIMEOUT, "1500");
+        attachments.put("trace-id", "链路-42");
+        header.setAttachments(attachments);
+
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setServiceName("myService");
+        rpcRequest.setMethodName("myMethod");
+        rpcRequest.setArgs(new Object[]{"aaa"});
+        Buffer encodeBuffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcRequest));
+        Assert.assertEquals(encodeBuffer.length(), ProtocolMessageDecoder.frameLength(BufferUtils.toByteBuf(encodeBuffer)));
+        // 截断的消息头无法确定帧长度
+        Assert.assertEquals(-1, ProtocolMessageDecoder.frameLength(BufferUtils.toByteBuf(encodeBuffer).slice(0, 6)));
+
+        // 只解码消息头即可读取附件
+        ProtocolMessage.Header decodedHeader = ProtocolMessageDecoder.decodeHeader(encodeBuffer);
+        Assert.assertEquals(300L, decodedHeader.getRequestId());
+        Assert.assertEquals(attachments, decodedHeader.getAttachments());
+
+        ProtocolMessage<?> message = ProtocolMessageDecoder.decode(encodeBuffer);
+        Assert.assertEquals("链路-42", message.getHeader().getAttachment("trace-id"));
+        Assert.assertEquals("myMethod", ((RpcRequest) message.getBody()).getMethodName());
+    }
+
+    @Test
+    public void testCompressedBody() throws IOException {
+        RpcResponse rpcResponse = new RpcResponse();
+        rpcResponse.setData("item-".repeat(2000));
+        rpcResponse.setDataType(String.class);
+        for (ProtocolMessageCompressorEnum compressorEnum : new ProtocolMessageCompressorEnum[]{
+                ProtocolMessageCompressorEnum.LZ4, ProtocolMessageCompressorEnum.DEFLATE}) {
+            ProtocolMessage.Header header = new ProtocolMessage.Header();
+            header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V2);
+            header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+            header.setCompressor((byte) compressorEnum.getKey());
+            header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+            header.setRequestId(7L);
+            ByteBuf byteBuf = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcResponse),
+                    UnpooledByteBufAllocator.DEFAULT, 1024, null);
+            Buffer encodeBuffer = BufferUtils.toBuffer(byteBuf);
+            Assert.assertEquals(compressorEnum.getKey(), header.getCompressor());
+            Assert.assertTrue(encodeBuffer.length() < 1000);
+            Assert.assertEquals(encodeBuffer.length(), ProtocolMessageDecoder.frameLength(byteBuf));
+
+            ProtocolMessage<?> message = ProtocolMessageDecoder.decode(encodeBuffer);
+            Assert.assertEquals(compressorEnum.getKey(), message.getHeader().getCompressor());
+            Assert.assertEquals(ProtocolMessageSerializerEnum.KRYO.getKey(), message.getHeader().getSerializer());
+            Assert.assertEquals(rpcResponse.getData(), ((RpcResponse) message.getBody()).getData());
+        }
+
+        // 小于阈值的消息体不压缩，压缩标记随之清除
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V2);
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+        header.setCompressor((byte) ProtocolMessageCompressorEnum.LZ4.getKey());
+        header.setType((byte) ProtocolMessageTypeEnum.RESPONSE.getKey());
+        ByteBuf byteBuf = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcResponse),
+                UnpooledByteBufAllocator.DEFAULT, 1 << 20, null);
+        ProtocolMessage<?> message = ProtocolMessageDecoder.decode(BufferUtils.toBuffer(byteBuf));
+        Assert.assertEquals(ProtocolMessageCompressorEnum.NONE.getKey(), message.getHeader().getCompressor());
+        Assert.assertEquals(rpcResponse.getData(), ((RpcResponse) message.getBody()).getData());
+
+        // 声明的原始长度超过上限时，分配内存前拒绝
+        header.setCompressor((byte) ProtocolMessageCompressorEnum.LZ4.getKey());
+        Buffer compressed = BufferUtils.toBuffer(ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, rpcResponse),
+                UnpooledByteBufAllocator.DEFAULT, 1024, null));
+        try {
+            ProtocolMessageDecoder.decode(compressed, 4096);
+            Assert.fail("原始长度超过上限的消息体应拒绝解压");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHandshakeMethodTable() throws IOException {
+        String serviceName = GreetingService.class.getName();
+        LocalRegistry.register(serviceName, GreetingServiceImpl.class);
+        Integer id;
+        try {
+            ProtocolMessage.Header header = new ProtocolMessage.Header();
+            header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+            header.setVersion(ProtocolConstant.PROTOCOL_VERSION_V2);
+            header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+            header.setType((byte) ProtocolMessageTypeEnum.HANDSHAKE.getKey());
+            Buffer encodeBuffer = ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, InvokerRegistry.methodTable()));
+            MethodTable methodTable = (MethodTable) ProtocolMessageDecoder.decode(encodeBuffer).getBody();
+
+            // 重载方法各有独立的 id，按 id 可直接取回对应的调用器
+            id = methodTable.getMethodIds().get(MethodTable.signature(serviceName, "greet",
+                    new Class[]{String.class, int.class}));
+            Assert.assertNotNull(id);
+            MethodInvoker invoker = InvokerRegistry.get(id);
+            Assert.assertEquals(2, invoker.getParameterTypes().length);
+            Assert.assertNotEquals(id, methodTable.getMethodIds().get(MethodTable.signature(serviceName, "greet", null)));
+        } finally {
+            LocalRegistry.remove(serviceName);
+        }
+        // 删除服务后 id 失效，不会指向其他方法
+        Assert.assertNull(InvokerRegistry.get(id));
+    }
+
+    public interface GreetingService {
+        String greet();
+
+        String greet(String name, int times);
+    }
+
+    public static class GreetingServiceImpl implements GreetingService {
+        @Override
+        public String greet() {
+            return "hi";
+        }
+
+        @Override
+        public String greet(String name, int times) {
+            return name.repeat(times);
+        }
+    }
 }
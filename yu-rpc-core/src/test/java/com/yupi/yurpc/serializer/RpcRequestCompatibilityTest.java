@@ -0,0 +1,52 @@
+package com.yupi.yurpc.serializer;
+
+import com.yupi.yurpc.model.RpcRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 请求体兼容性测试：资源文件为旧版本（新增超时、优先级字段之前）的 RpcRequest 序列化结果，
+ * 新旧版本之间的请求体必须能互相解析
+ */
+public class RpcRequestCompatibilityTest {
+
+    @Test
+    public void jdk() throws IOException {
+        assertCompatible(new JdkSerializer(), "rpc-request-baseline.jdk");
+    }
+
+    @Test
+    public void kryo() throws IOException {
+        assertCompatible(new KryoSerializer(), "rpc-request-baseline.kryo");
+    }
+
+    @Test
+    public void json() throws IOException {
+        assertCompatible(new JsonSerializer(), "rpc-request-baseline.json");
+    }
+
+    private static void assertCompatible(Serializer serializer, String resource) throws IOException {
+        byte[] baseline = readResource(resource);
+        // 旧客户端 -> 新服务端
+        RpcRequest rpcRequest = serializer.deserialize(baseline, RpcRequest.class);
+        Assert.assertEquals("com.yupi.example.common.service.UserService", rpcRequest.getServiceName());
+        Assert.assertEquals("getUser", rpcRequest.getMethodName());
+        Assert.assertEquals("1.0", rpcRequest.getServiceVersion());
+        Assert.assertArrayEquals(new Class<?>[]{String.class}, rpcRequest.getParameterTypes());
+        Assert.assertArrayEquals(new Object[]{"yupi"}, rpcRequest.getArgs());
+        // 新客户端 -> 旧服务端：超时、优先级不进入请求体，序列化结果与旧版本逐字节一致
+        rpcRequest.setTimeoutMillis(3000);
+        rpcRequest.setPriority(10);
+        Assert.assertArrayEquals(baseline, serializer.serialize(rpcRequest));
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = RpcRequestCompatibilityTest.class.getResourceAsStream("/serializer/" + name)) {
+            Assert.assertNotNull(name, inputStream);
+            return inputStream.readAllBytes();
+        }
+    }
+}
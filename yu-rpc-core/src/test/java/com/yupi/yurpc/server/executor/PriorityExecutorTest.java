@@ -0,0 +1,96 @@
+package com.yupi.yurpc.server.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 优先级执行器测试
+ */
+public class PriorityExecutorTest {
+
+    @Test
+    public void highPriorityFirstAndLowPriorityShed() throws InterruptedException {
+        PriorityExecutor executor = new PriorityExecutor(1, 2);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        List<String> shed = new CopyOnWriteArrayList<>();
+
+        // 占住唯一的工作线程，后续任务全部排队
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        executor.execute(task(-10, "low-1", executed, shed, done));
+        executor.execute(task(-10, "low-2", executed, shed, done));
+        // 队列已满：高优先级挤出最晚提交的低优先级任务
+        executor.execute(task(10, "high", executed, shed, done));
+        Assert.assertEquals(1, shed.size());
+        Assert.assertEquals("low-2", shed.get(0));
+        // 队列已满且不高于队尾优先级：拒绝
+        try {
+            executor.execute(task(-10, "low-3", executed, shed, done));
+            Assert.fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+
+        blocker.countDown();
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("high", executed.get(0));
+        Assert.assertEquals("low-1", executed.get(1));
+    }
+
+    @Test
+    public void bulkheadQueuesByPriority() throws InterruptedException {
+        BulkheadExecutor executor = new BulkheadExecutor("priority-test", 1, 3);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        List<String> shed = new CopyOnWriteArrayList<>();
+
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        executor.execute(task(-10, "low", executed, shed, done));
+        executor.execute(task(0, "normal", executed, shed, done));
+        executor.execute(task(10, "high", executed, shed, done));
+        // 队列已满：舱壁直接拒绝，不挤出已排队的任务
+        try {
+            executor.execute(task(20, "urgent", executed, shed, done));
+            Assert.fail();
+        } catch (BulkheadFullException ignored) {
+        }
+
+        blocker.countDown();
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of("high", "normal", "low"), executed);
+        Assert.assertTrue(shed.isEmpty());
+    }
+
+    private PrioritizedTask task(int priority, String name, List<String> executed, List<String> shed,
+                                 CountDownLatch done) {
+        return new PrioritizedTask(priority, () -> {
+            executed.add(name);
+            done.countDown();
+        }, () -> shed.add(name));
+    }
+}
@@ -0,0 +1,95 @@
+package com.yupi.yurpc.server.limiter;
+
+import com.yupi.yurpc.annotation.ConcurrencyLimit;
+import com.yupi.yurpc.registry.LocalRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 自适应并发限制器测试
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void rejectWhenLimitReached() {
+        ConcurrencyLimiter limiter = new GradientLimiter(2, 1, 10);
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        limiter.onIgnore();
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void gradient() {
+        assertAdaptive(new GradientLimiter(20, 4, 200));
+    }
+
+    @Test
+    public void vegas() {
+        // 样本数远超探测间隔：时延上升阶段上限持续调整，不会触发探测把排队时延当作无负载时延
+        for (int i = 0; i < 20; i++) {
+            assertAdaptive(new VegasLimiter(20, 4, 200));
+        }
+    }
+
+    @Test
+    public void unknownAlgorithm() {
+        try {
+            ConcurrencyLimiters.checkAlgorithm("vegsa");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(ConcurrencyLimiterKeys.GRADIENT));
+        }
+    }
+
+    @Test
+    public void unknownAlgorithmOnRegister() {
+        try {
+            LocalRegistry.register(MisconfiguredService.class.getName(), MisconfiguredService.class);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("vegsa"));
+        }
+        Assert.assertNull(LocalRegistry.get(MisconfiguredService.class.getName()));
+    }
+
+    public static class MisconfiguredService {
+        @ConcurrencyLimit("vegsa")
+        public String find(String name) {
+            return name;
+        }
+    }
+
+    /**
+     * 时延稳定且满负载时上限增长；时延明显上升时上限收缩
+     */
+    private void assertAdaptive(ConcurrencyLimiter limiter) {
+        int initialLimit = limiter.getLimit();
+        runRounds(limiter, 50, 10 * MILLIS);
+        int grownLimit = limiter.getLimit();
+        Assert.assertTrue("稳定时延下上限应增长：" + grownLimit, grownLimit > initialLimit);
+
+        // 持续较久后算法会把新时延当作基线重新增长，这里只观察时延刚上升时的反应
+        runRounds(limiter, 3, 50 * MILLIS);
+        Assert.assertTrue("时延上升后上限应收缩：" + limiter.getLimit(), limiter.getLimit() < grownLimit);
+    }
+
+    /**
+     * 每轮占满所有名额，再以相同时延全部完成
+     */
+    private void runRounds(ConcurrencyLimiter limiter, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.onComplete(rttNanos);
+            }
+        }
+    }
+}
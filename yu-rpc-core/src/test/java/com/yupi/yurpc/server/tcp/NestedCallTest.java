@@ -0,0 +1,98 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.registry.LocalRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 嵌套调用测试：提供者在方法内发起的调用不能继承上游请求的方法 id
+ */
+public class NestedCallTest {
+
+    private static final int PORT = 18091;
+
+    private static final AtomicInteger FORWARD_CALLS = new AtomicInteger();
+
+    public interface Gateway {
+        String ping();
+
+        String forward(String name);
+    }
+
+    public interface Backend {
+        String late(String name);
+    }
+
+    public static class GatewayImpl implements Gateway {
+        @Override
+        public String ping() {
+            return "pong";
+        }
+
+        @Override
+        public String forward(String name) {
+            FORWARD_CALLS.incrementAndGet();
+            try {
+                RpcResponse response = VertxTcpClient.doRequest(request(Backend.class, "late", name), serviceMetaInfo());
+                return (String) response.getData();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public static class BackendImpl implements Backend {
+        @Override
+        public String late(String name) {
+            return "late:" + name;
+        }
+    }
+
+    @Test
+    public void nestedCallToMethodWithoutId() throws Exception {
+        LocalRegistry.register(Gateway.class.getName(), GatewayImpl.class);
+        new VertxTcpServer().doStart(PORT);
+        try {
+            // 首个请求按名称发送并触发握手，等待 id 表下发后，forward 按方法 id 发送
+            Assert.assertEquals("pong", VertxTcpClient.doRequest(request(Gateway.class, "ping"), serviceMetaInfo()).getData());
+            Thread.sleep(200);
+            // 握手之后才注册的方法不在已下发的 id 表中，嵌套调用只能按名称发送
+            LocalRegistry.register(Backend.class.getName(), BackendImpl.class);
+            RpcResponse response = VertxTcpClient.doRequest(request(Gateway.class, "forward", "x"), serviceMetaInfo());
+            Assert.assertNull(response.getException());
+            Assert.assertEquals("late:x", response.getData());
+            // 嵌套调用若继承了 forward 的方法 id，会在服务端再次执行 forward
+            Assert.assertEquals(1, FORWARD_CALLS.get());
+        } finally {
+            LocalRegistry.remove(Gateway.class.getName());
+            LocalRegistry.remove(Backend.class.getName());
+        }
+    }
+
+    private static RpcRequest request(Class<?> serviceClass, String methodName, String... args) {
+        Class<?>[] parameterTypes = new Class<?>[args.length];
+        Arrays.fill(parameterTypes, String.class);
+        return RpcRequest.builder()
+                .serviceName(serviceClass.getName())
+                .methodName(methodName)
+                .parameterTypes(parameterTypes)
+                .args(args)
+                .build();
+    }
+
+    private static ServiceMetaInfo serviceMetaInfo() {
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(Gateway.class.getName());
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(PORT);
+        serviceMetaInfo.setProtocolVersion((int) ProtocolConstant.PROTOCOL_VERSION);
+        return serviceMetaInfo;
+    }
+}
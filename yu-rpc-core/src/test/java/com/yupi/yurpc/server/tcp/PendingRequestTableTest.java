@@ -0,0 +1,75 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 连接级待响应请求表测试
+ */
+public class PendingRequestTableTest {
+
+    @Test
+    public void putAndRemove() {
+        PendingRequestTable table = new PendingRequestTable();
+        // 超过初始容量，触发扩容
+        for (long id = 1; id <= 1000; id++) {
+            table.put(id, new CompletableFuture<>());
+        }
+        Assert.assertEquals(1000, table.size());
+        for (long id = 1; id <= 1000; id++) {
+            Assert.assertNotNull(table.remove(id));
+            Assert.assertNull(table.remove(id));
+        }
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void removeOnlyMatchingFuture() {
+        PendingRequestTable table = new PendingRequestTable();
+        CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+        table.put(1, future);
+        Assert.assertFalse(table.remove(1, new CompletableFuture<>()));
+        Assert.assertTrue(table.remove(1, future));
+        Assert.assertEquals(0, table.size());
+    }
+
+    /**
+     * 随机增删，与 HashMap 对照，校验向后移位删除不会丢失探测链上的元素
+     */
+    @Test
+    public void randomOperationsMatchHashMap() {
+        PendingRequestTable table = new PendingRequestTable();
+        Map<Long, CompletableFuture<RpcResponse>> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long id = 1 + random.nextInt(512);
+            if (random.nextBoolean()) {
+                CompletableFuture<RpcResponse> future = new CompletableFuture<>();
+                table.put(id, future);
+                expected.put(id, future);
+            } else {
+                Assert.assertSame(expected.remove(id), table.remove(id));
+            }
+        }
+        Assert.assertEquals(expected.size(), table.size());
+    }
+
+    @Test
+    public void removeAll() {
+        PendingRequestTable table = new PendingRequestTable();
+        for (long id = 1; id <= 100; id++) {
+            table.put(id, new CompletableFuture<>());
+        }
+        List<CompletableFuture<RpcResponse>> futures = table.removeAll();
+        Assert.assertEquals(100, futures.size());
+        Assert.assertEquals(0, table.size());
+        Assert.assertNull(table.remove(1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.annotation.Idempotent;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageStatusEnum;
+import com.yupi.yurpc.registry.InvokerRegistry;
+import com.yupi.yurpc.registry.LocalRegistry;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 请求合并测试：leader 因 Error 异常退出时，follower 收到异常响应，之后的相同请求重新执行
+ */
+public class RequestCoalescerTest {
+
+    public interface Lookup {
+        String find(String name);
+    }
+
+    public static class LookupImpl implements Lookup {
+        @Override
+        @Idempotent
+        public String find(String name) {
+            return name;
+        }
+    }
+
+    @BeforeClass
+    public static void register() {
+        LocalRegistry.register(Lookup.class.getName(), LookupImpl.class);
+    }
+
+    @AfterClass
+    public static void remove() {
+        LocalRegistry.remove(Lookup.class.getName());
+    }
+
+    @Test
+    public void abandonWithErrorReleasesFollowers() {
+        InvocationKey key = key("x");
+        RequestCoalescer.Flight leader = RequestCoalescer.join(key, (response, status) -> Assert.fail("leader 不应收到回调"));
+        Assert.assertNotNull(leader);
+        AtomicReference<RpcResponse> followerResponse = new AtomicReference<>();
+        AtomicReference<ProtocolMessageStatusEnum> followerStatus = new AtomicReference<>();
+        Assert.assertNull(RequestCoalescer.join(key("x"), (response, status) -> {
+            followerResponse.set(response);
+            followerStatus.set(status);
+        }));
+
+        leader.abandon(new AssertionError("boom"));
+        Assert.assertEquals(ProtocolMessageStatusEnum.OK, followerStatus.get());
+        Assert.assertNotNull(followerResponse.get().getException());
+        Assert.assertEquals("服务端处理异常：boom", followerResponse.get().getMessage());
+
+        // 合并已移除，相同请求成为新的 leader；之前的 leader 再次 abandon 不影响新的合并
+        RequestCoalescer.Flight next = RequestCoalescer.join(key("x"), (response, status) -> Assert.fail());
+        Assert.assertNotNull(next);
+        leader.abandon(new AssertionError("again"));
+        Assert.assertNull(RequestCoalescer.join(key("x"), (response, status) -> {
+        }));
+        next.complete(new RpcResponse(), ProtocolMessageStatusEnum.OK);
+    }
+
+    private static InvocationKey key(String arg) {
+        RpcRequest rpcRequest = RpcRequest.builder()
+                .args(new Object[]{arg})
+                .build();
+        return InvocationKey.of(InvokerRegistry.get(Lookup.class.getName(), "find", new Class<?>[]{String.class}),
+                rpcRequest, (byte) ProtocolMessageSerializerEnum.HESSIAN.getKey());
+    }
+}
@@ -0,0 +1,98 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.RpcApplication;
+import com.yupi.yurpc.model.RpcRequest;
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.registry.LocalRegistry;
+import com.yupi.yurpc.serializer.SerializerKeys;
+import com.yupi.yurpc.server.limiter.ConcurrencyLimiters;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * 服务方法抛出 Error 的测试：调用方收到异常响应，并发名额正常归还
+ */
+public class ServiceErrorTest {
+
+    private static final int PORT = 18092;
+
+    private static String serializer;
+
+    public interface Faulty {
+        String fail(String name);
+    }
+
+    public static class FaultyImpl implements Faulty {
+        @Override
+        public String fail(String name) {
+            throw new AssertionError("broken:" + name);
+        }
+    }
+
+    @BeforeClass
+    public static void startServer() throws InterruptedException {
+        // 默认的 jdk 序列化器（SPI 中映射为 Kryo）在 JDK 17 上无法序列化异常，改用 Hessian
+        serializer = RpcApplication.getRpcConfig().getSerializer();
+        RpcApplication.getRpcConfig().setSerializer(SerializerKeys.HESSIAN);
+        LocalRegistry.register(Faulty.class.getName(), FaultyImpl.class);
+        new VertxTcpServer().doStart(PORT);
+        awaitListening();
+    }
+
+    @AfterClass
+    public static void restore() {
+        LocalRegistry.remove(Faulty.class.getName());
+        RpcApplication.getRpcConfig().setSerializer(serializer);
+    }
+
+    @Test
+    public void errorIsAnsweredAndPermitReleased() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            RpcResponse response = VertxTcpClient.doRequest(request("fail", "x"), serviceMetaInfo());
+            Assert.assertNotNull(response.getException());
+            Assert.assertEquals("broken:x", response.getMessage());
+        }
+        Assert.assertEquals(0, ConcurrencyLimiters.get(FaultyImpl.class,
+                FaultyImpl.class.getMethod("fail", String.class)).getInFlight());
+    }
+
+    /**
+     * 服务器异步启动，等待端口可连接
+     */
+    private static void awaitListening() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            try (Socket ignored = new Socket("localhost", PORT)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        Assert.fail("服务器未在 5 秒内启动");
+    }
+
+    private static RpcRequest request(String methodName, String arg) {
+        return RpcRequest.builder()
+                .serviceName(Faulty.class.getName())
+                .methodName(methodName)
+                .parameterTypes(new Class<?>[]{String.class})
+                .args(new Object[]{arg})
+                .build();
+    }
+
+    private static ServiceMetaInfo serviceMetaInfo() {
+        ServiceMetaInfo serviceMetaInfo = new ServiceMetaInfo();
+        serviceMetaInfo.setServiceName(Faulty.class.getName());
+        serviceMetaInfo.setServiceHost("localhost");
+        serviceMetaInfo.setServicePort(PORT);
+        serviceMetaInfo.setProtocolVersion((int) ProtocolConstant.PROTOCOL_VERSION);
+        return serviceMetaInfo;
+    }
+}
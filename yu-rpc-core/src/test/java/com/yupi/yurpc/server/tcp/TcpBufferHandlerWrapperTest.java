@@ -0,0 +1,80 @@
+package com.yupi.yurpc.server.tcp;
+
+import com.yupi.yurpc.model.RpcResponse;
+import com.yupi.yurpc.protocol.ProtocolConstant;
+import com.yupi.yurpc.protocol.ProtocolMessage;
+import com.yupi.yurpc.protocol.ProtocolMessageDecoder;
+import com.yupi.yurpc.protocol.ProtocolMessageEncoder;
+import com.yupi.yurpc.protocol.ProtocolMessageSerializerEnum;
+import com.yupi.yurpc.protocol.ProtocolMessageTypeEnum;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 帧切分测试
+ */
+public class TcpBufferHandlerWrapperTest {
+
+    @Test
+    public void splitFramesAcrossChunks() throws IOException {
+        Buffer stream = Buffer.buffer();
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            // 穿插心跳帧（无消息体）与较大的消息体
+            stream.appendBuffer(id % 10 == 0 ? encode(id, ProtocolMessageTypeEnum.HEART_BEAT, null)
+                    : encode(id, ProtocolMessageTypeEnum.RESPONSE, repeat('x', (int) id * 997)));
+            expected.add(id);
+        }
+        Random random = new Random(42);
+        List<Long> received = new ArrayList<>();
+        TcpBufferHandlerWrapper wrapper = new TcpBufferHandlerWrapper(buffer -> {
+            try {
+                ProtocolMessage<?> message = ProtocolMessageDecoder.decode(buffer);
+                long id = message.getHeader().getRequestId();
+                if (message.getBody() != null) {
+                    Assert.assertEquals(repeat('x', (int) id * 997), ((RpcResponse) message.getBody()).getData());
+                }
+                received.add(id);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // 按随机长度切块输入，覆盖一块多帧、一帧多块及在头部中间断开的情况
+        int offset = 0;
+        while (offset < stream.length()) {
+            int end = Math.min(stream.length(), offset + 1 + random.nextInt(4096));
+            wrapper.handle(stream.getBuffer(offset, end));
+            offset = end;
+        }
+        Assert.assertEquals(expected, received);
+    }
+
+    private static Buffer encode(long requestId, ProtocolMessageTypeEnum type, String data) throws IOException {
+        ProtocolMessage.Header header = new ProtocolMessage.Header();
+        header.setMagic(ProtocolConstant.PROTOCOL_MAGIC);
+        // v1、v2 消息头交替出现
+        header.setVersion(requestId % 2 == 0 ? ProtocolConstant.PROTOCOL_VERSION_V1 : ProtocolConstant.PROTOCOL_VERSION_V2);
+        header.setAttachments(Collections.singletonMap("trace-id", String.valueOf(requestId)));
+        header.setSerializer((byte) ProtocolMessageSerializerEnum.KRYO.getKey());
+        header.setType((byte) type.getKey());
+        header.setRequestId(requestId);
+        RpcResponse response = null;
+        if (data != null) {
+            response = new RpcResponse();
+            response.setData(data);
+            response.setDataType(String.class);
+        }
+        return ProtocolMessageEncoder.encode(new ProtocolMessage<>(header, response));
+    }
+
+    private static String repeat(char c, int count) {
+        return String.valueOf(c).repeat(count);
+    }
+}
@@ -47,6 +47,12 @@ public @interface RpcReference {
      */
     String tolerantStrategy() default TolerantStrategyKeys.FAIL_FAST;
 
+    /**
+     * 请求优先级，数值越大越优先（服务端排队时先执行；服务端使用 priority 执行器时，过载会优先丢弃低优先级请求）
+     * @return
+     */
+    int priority() default RpcConstant.DEFAULT_PRIORITY;
+
     /**
      * 是否开启模拟调用
      * @return
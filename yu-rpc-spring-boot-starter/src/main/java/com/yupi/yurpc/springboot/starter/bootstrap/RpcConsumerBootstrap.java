@@ -32,7 +32,7 @@ public class RpcConsumerBootstrap implements BeanPostProcessor {
                 }
                 field.setAccessible(true);
                 // 创建代理对象
-                Object proxyObject = ServiceProxyFactory.getProxy(interfaceClass);
+                Object proxyObject = ServiceProxyFactory.getProxy(interfaceClass, rpcReference.priority());
                 try {
                     field.set(bean, proxyObject);
                     field.setAccessible(false);
@@ -4,6 +4,7 @@ import com.yupi.yurpc.RpcApplication;
 import com.yupi.yurpc.config.RegistryConfig;
 import com.yupi.yurpc.config.RpcConfig;
 import com.yupi.yurpc.model.ServiceMetaInfo;
+import com.yupi.yurpc.protocol.ProtocolConstant;
 import com.yupi.yurpc.registry.LocalRegistry;
 import com.yupi.yurpc.registry.Registry;
 import com.yupi.yurpc.registry.RegistryFactory;
@@ -44,8 +45,8 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
             String serviceVersion = rpcService.serviceVersion();
 
             // 2.注册服务
-            // 2.1.本地注册
-            LocalRegistry.register(serviceName, beanClass);
+            // 2.1.本地注册（直接注册 Spring Bean 实例，复用其依赖注入与状态）
+            LocalRegistry.register(serviceName, bean);
             // 2.2.注册服务到注册中心
             final RpcConfig rpcConfig = RpcApplication.getRpcConfig();
             // 注册中心配置
@@ -58,6 +59,7 @@ public class RpcProviderBootstrap implements BeanPostProcessor {
             serviceMetaInfo.setServiceVersion(serviceVersion);
             serviceMetaInfo.setServiceHost(rpcConfig.getServerHost());
             serviceMetaInfo.setServicePort(rpcConfig.getServerPort());
+            serviceMetaInfo.setProtocolVersion((int) ProtocolConstant.PROTOCOL_VERSION);
             try {
                 // 注册服务
                 registry.register(serviceMetaInfo);